@@ -1,4 +1,54 @@
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
+
+// Lê um corpo text/event-stream e chama onEvento para cada evento completo
+async function lerEventos(corpo, onEvento) {
+  const leitor = corpo.getReader();
+  const decodificador = new TextDecoder();
+  let pendente = '';
+  let evento = { dados: '' };
+
+  while (true) {
+    const { done, value } = await leitor.read();
+    if (done) return;
+    pendente += decodificador.decode(value, { stream: true });
+
+    let fim;
+    while ((fim = pendente.indexOf('\n')) >= 0) {
+      const linha = pendente.slice(0, fim).replace(/\r$/, '');
+      pendente = pendente.slice(fim + 1);
+
+      if (linha === '') {
+        if (evento.tipo || evento.dados) onEvento(evento);
+        evento = { dados: '' };
+      } else if (!linha.startsWith(':')) {
+        const separador = linha.indexOf(':');
+        const campo = separador >= 0 ? linha.slice(0, separador) : linha;
+        const valor = separador >= 0 ? linha.slice(separador + 1).replace(/^ /, '') : '';
+        if (campo === 'id') evento.id = valor;
+        else if (campo === 'event') evento.tipo = valor;
+        else if (campo === 'data') evento.dados += evento.dados ? `\n${valor}` : valor;
+      }
+    }
+  }
+}
+
+// O id "época-seq" segue o anterior: mesma instância e seq + 1
+function emSequencia(anterior, atual) {
+  if (anterior === null || atual === undefined) return false;
+  const [epocaAnterior, seqAnterior] = anterior.split('-');
+  const [epoca, seq] = atual.split('-');
+  return epoca === epocaAnterior && Number(seq) === Number(seqAnterior) + 1;
+}
+
+// Mesmos critérios que o servidor usa em /admin/emails/todos
+function atendeFiltros(email, { filtroStatus, filtroBusca, filtroDataInicio, filtroDataFim }) {
+  if (filtroStatus !== 'todos' && email.status.toLowerCase() !== filtroStatus) return false;
+  if (filtroBusca && !email.destinatario.startsWith(filtroBusca)) return false;
+  const dia = email.enviadoEm ? email.enviadoEm.slice(0, 10) : null;
+  if (filtroDataInicio && (!dia || dia < filtroDataInicio)) return false;
+  if (filtroDataFim && (!dia || dia > filtroDataFim)) return false;
+  return true;
+}
 
 export default function AdminEmails() {
   const [falhas, setFalhas] = useState([]);
@@ -8,36 +58,116 @@ export default function AdminEmails() {
   const [reenviando, setReenviando] = useState(false);
   const [modalAberto, setModalAberto] = useState(false);
   const [editando, setEditando] = useState(false);
+  const [proximoCursor, setProximoCursor] = useState(null);
+  const [carregandoMais, setCarregandoMais] = useState(false);
 
   // Filtros
   const [filtroStatus, setFiltroStatus] = useState('todos');
   const [filtroBusca, setFiltroBusca] = useState('');
   const [filtroDataInicio, setFiltroDataInicio] = useState('');
   const [filtroDataFim, setFiltroDataFim] = useState('');
+  // Busca que vale para a lista: só muda 300 ms depois da última tecla
+  const [buscaAplicada, setBuscaAplicada] = useState('');
+
+  useEffect(() => {
+    const timer = setTimeout(() => setBuscaAplicada(filtroBusca.trim()), 300);
+    return () => clearTimeout(timer);
+  }, [filtroBusca]);
 
+  // Os filtros são aplicados no servidor; a lista é paginada por cursor
   useEffect(() => {
     fetchFalhas();
+  }, [filtroStatus, buscaAplicada, filtroDataInicio, filtroDataFim]);
+
+  // Filtros e busca atuais para quem recebe eventos fora do ciclo de render
+  const filtrosRef = useRef({});
+  filtrosRef.current = { filtroStatus, filtroBusca: buscaAplicada, filtroDataInicio, filtroDataFim };
+  const recarregarRef = useRef(null);
+
+  // Mudanças de status chegam por SSE; a lista só é buscada de novo quando o servidor pede
+  useEffect(() => {
+    const controle = new AbortController();
+    let ultimoId = null;
+    let espera = 1000;
+
+    const conectar = async () => {
+      while (!controle.signal.aborted) {
+        try {
+          const token = localStorage.getItem('token');
+          const headers = { Authorization: `Bearer ${token}`, Accept: 'text/event-stream' };
+          if (ultimoId !== null) headers['Last-Event-ID'] = ultimoId;
+
+          // fetch em vez de EventSource: EventSource não envia o header Authorization
+          const res = await fetch('http://localhost:8080/admin/emails/stream', {
+            headers,
+            signal: controle.signal,
+          });
+          if (res.status === 401 || res.status === 403) return;
+          if (!res.ok) throw new Error('Erro ao abrir eventos');
+
+          espera = 1000;
+          await lerEventos(res.body, (evento) => {
+            // ids "época-seq" chegam sem buracos; fora de sequência, algo se perdeu (outra
+            // instância, restart) e a listagem é buscada de novo em vez de confiar nos eventos
+            if (evento.tipo === 'email' && !emSequencia(ultimoId, evento.id)) recarregarRef.current();
+            if (evento.id !== undefined) ultimoId = evento.id;
+            if (evento.tipo === 'email') aplicarEvento(JSON.parse(evento.dados));
+            else if (evento.tipo === 'recarregar') recarregarRef.current();
+          });
+        } catch (err) {
+          if (controle.signal.aborted) return;
+        }
+        // conexão caiu (ou o servidor desconectou um cliente lento): reconecta com o último id
+        await new Promise(resolve => setTimeout(resolve, espera));
+        espera = Math.min(espera * 2, 30000);
+      }
+    };
+
+    conectar();
+    return () => controle.abort();
   }, []);
 
-  const fetchFalhas = async () => {
-    setLoading(true);
+  const aplicarEvento = (email) => {
+    setFalhas(atuais => {
+      const visivel = atendeFiltros(email, filtrosRef.current);
+      const indice = atuais.findIndex(f => f.id === email.id);
+      if (indice === -1) return visivel ? [email, ...atuais] : atuais;
+      if (!visivel) return atuais.filter(f => f.id !== email.id);
+      const novos = [...atuais];
+      novos[indice] = { ...atuais[indice], ...email };
+      return novos;
+    });
+  };
+
+  const fetchFalhas = async (cursor = null) => {
+    cursor ? setCarregandoMais(true) : setLoading(true);
     try {
       const token = localStorage.getItem("token");
-      const res = await fetch("http://localhost:8080/admin/emails/todos", {
+      const params = new URLSearchParams({ limite: '50' });
+      if (filtroStatus !== 'todos') params.set('status', filtroStatus.toUpperCase());
+      if (buscaAplicada) params.set('destinatario', buscaAplicada);
+      if (filtroDataInicio) params.set('de', filtroDataInicio);
+      if (filtroDataFim) params.set('ate', filtroDataFim);
+      if (cursor) params.set('cursor', cursor);
+
+      const res = await fetch(`http://localhost:8080/admin/emails/todos?${params}`, {
         headers: { Authorization: `Bearer ${token}` },
       });
 
       if (!res.ok) throw new Error("Erro ao buscar falhas");
 
-      const dados = await res.json();
-      setFalhas(dados);
+      const pagina = await res.json();
+      setFalhas(anteriores => cursor ? [...anteriores, ...pagina.itens] : pagina.itens);
+      setProximoCursor(pagina.proximoCursor);
     } catch (err) {
       setMensagem("Erro ao buscar falhas.");
       setTimeout(() => setMensagem(''), 3000);
     } finally {
       setLoading(false);
+      setCarregandoMais(false);
     }
   };
+  recarregarRef.current = fetchFalhas;
 
   const testarFalha = async () => {
     try {
@@ -51,7 +181,6 @@ export default function AdminEmails() {
 
       setMensagem("Falha gerada com sucesso!");
       setTimeout(() => setMensagem(''), 3000);
-      fetchFalhas();
     } catch (err) {
       setMensagem("Erro ao gerar falha");
       setTimeout(() => setMensagem(''), 3000);
@@ -78,8 +207,7 @@ export default function AdminEmails() {
       });
 
       if (res.ok) {
-        setMensagem('E-mail reenviado com sucesso!');
-        fetchFalhas();
+        setMensagem('Reenvio agendado com sucesso!');
       } else {
         setMensagem('Erro ao reenviar e-mail.');
       }
@@ -95,10 +223,24 @@ export default function AdminEmails() {
     }
   };
 
-  const abrirModal = (falha) => {
+  const abrirModal = async (falha) => {
     setFalhaSelecionada(falha);
     setModalAberto(true);
     setEditando(false);
+
+    // corpo e erro não vêm na listagem
+    try {
+      const token = localStorage.getItem('token');
+      const res = await fetch(`http://localhost:8080/admin/emails/${falha.id}/corpo`, {
+        headers: { Authorization: `Bearer ${token}` },
+      });
+      if (!res.ok) throw new Error('Erro ao buscar conteúdo');
+      const conteudo = await res.json();
+      setFalhaSelecionada(atual => atual && atual.id === falha.id ? { ...atual, ...conteudo } : atual);
+    } catch (err) {
+      setMensagem('Erro ao carregar conteúdo do e-mail.');
+      setTimeout(() => setMensagem(''), 3000);
+    }
   };
 
   const fecharModal = () => {
@@ -127,39 +269,9 @@ export default function AdminEmails() {
     }).format(data);
   };
 
-  // Aplicar filtros
-  const falhasFiltradas = falhas.filter(falha => {
-    // Filtro por status
-    if (filtroStatus !== 'todos' && falha.status.toLowerCase() !== filtroStatus) {
-      return false;
-    }
-
-    // Filtro por busca
-    if (filtroBusca &&
-        !falha.destinatario.toLowerCase().includes(filtroBusca.toLowerCase()) &&
-        !falha.assunto.toLowerCase().includes(filtroBusca.toLowerCase()) &&
-        !falha.corpo.toLowerCase().includes(filtroBusca.toLowerCase())) {
-      return false;
-    }
+  const falhasFiltradas = falhas;
 
-    // Filtro por data
-    if (filtroDataInicio) {
-      const dataFalha = new Date(falha.enviadoEm);
-      const dataInicio = new Date(filtroDataInicio);
-      if (dataFalha < dataInicio) return false;
-    }
-
-    if (filtroDataFim) {
-      const dataFalha = new Date(falha.enviadoEm);
-      const dataFim = new Date(filtroDataFim);
-      dataFim.setHours(23, 59, 59); // Fim do dia
-      if (dataFalha > dataFim) return false;
-    }
-
-    return true;
-  });
-
-  // Estatísticas para dashboard
+  // Estatísticas para dashboard (sobre os e-mails já carregados)
   const totalEmails = falhas.length;
   const emailsFalha = falhas.filter(f => f.status.toLowerCase() === 'falha').length;
   const emailsEnviados = falhas.filter(f =>
@@ -229,14 +341,15 @@ export default function AdminEmails() {
               <option value="pendente">Pendente</option>
               <option value="sucesso">Sucesso</option>
               <option value="reenviado">Reenviado</option>
+              <option value="retry">Aguardando nova tentativa</option>
             </select>
           </div>
 
           <div>
-            <label className="block text-sm font-medium text-gray-700 mb-1">Buscar</label>
+            <label className="block text-sm font-medium text-gray-700 mb-1">Destinatário (início do e-mail)</label>
             <input
               type="text"
-              placeholder="Destinatário, assunto..."
+              placeholder="email@exemplo.com"
               value={filtroBusca}
               onChange={(e) => setFiltroBusca(e.target.value)}
               className="w-full p-2 border border-gray-300 rounded-md"
@@ -315,6 +428,18 @@ export default function AdminEmails() {
         </div>
       )}
 
+      {!loading && proximoCursor && (
+        <div className="mt-6 flex justify-center">
+          <button
+            onClick={() => fetchFalhas(proximoCursor)}
+            disabled={carregandoMais}
+            className="px-4 py-2 border border-gray-300 rounded-lg text-gray-700 hover:bg-gray-50"
+          >
+            {carregandoMais ? 'Carregando...' : 'Carregar mais'}
+          </button>
+        </div>
+      )}
+
       {modalAberto && falhaSelecionada && (
         <div className="fixed inset-0 bg-black bg-opacity-50 flex items-center justify-center p-4 z-50">
           <div className="bg-white rounded-xl shadow-2xl max-w-2xl w-full max-h-[90vh] overflow-y-auto">
@@ -384,13 +509,13 @@ export default function AdminEmails() {
                   <label className="block text-sm font-medium text-gray-700">Conteúdo</label>
                   {editando ? (
                     <textarea
-                      value={falhaSelecionada.corpo}
+                      value={falhaSelecionada.corpo ?? ''}
                       onChange={(e) => handleCampoEditavelChange('corpo', e.target.value)}
                       className="mt-1 w-full h-40 p-2 border border-gray-300 rounded-md"
                     />
                   ) : (
                     <div className="mt-1 p-3 bg-gray-50 rounded-lg text-gray-700 max-h-40 overflow-y-auto whitespace-pre-wrap">
-                      {falhaSelecionada.corpo}
+                      {falhaSelecionada.corpo ?? 'Carregando...'}
                     </div>
                   )}
                 </div>
@@ -0,0 +1,61 @@
+package com.notificacao.notificador.benchmark;
+
+import com.notificacao.notificador.config.CircuitBreakerProperties;
+import com.notificacao.notificador.service.CircuitBreakerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CircuitBreakerService} com várias threads disputando o mesmo circuito, como os workers
+ * de envio: cada operação consulta o circuito e registra o resultado (1% de falhas).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircuitBreakerBenchmark {
+
+    private CircuitBreakerService circuito;
+
+    @Setup
+    public void preparar() {
+        circuito = new CircuitBreakerService(new CircuitBreakerProperties(), evento -> { }, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean umaThread() {
+        return envio();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean oitoThreads() {
+        return envio();
+    }
+
+    private boolean envio() {
+        boolean pode = circuito.podeTentarEnvio();
+        if (ThreadLocalRandom.current().nextInt(100) == 0) {
+            circuito.registrarFalha();
+        } else {
+            circuito.registrarSucesso();
+        }
+        return pode;
+    }
+}
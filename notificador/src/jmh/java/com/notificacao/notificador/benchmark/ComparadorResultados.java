@@ -0,0 +1,80 @@
+package com.notificacao.notificador.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compara dois resultados JSON do JMH (base e atual) e aponta as regressões acima do limite.
+ * Só conta como regressão a piora que passa do limite e também da soma dos {@code scoreError}
+ * (intervalos de confiança de 99,9% que não se sobrepõem); o resto é ruído da medição.
+ * Uso: {@code ComparadorResultados <base.json> <atual.json> [limitePercentual]}. Sem o arquivo
+ * base, só avisa e termina sem erro.
+ */
+public class ComparadorResultados {
+
+    public static void main(String[] args) throws IOException {
+        File base = new File(args[0]);
+        File atual = new File(args[1]);
+        double limite = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        if (!base.isFile()) {
+            System.out.println("Sem resultado base em " + base + "; copie " + atual + " para lá para comparar as próximas execuções.");
+            return;
+        }
+
+        Map<String, JsonNode> anteriores = ler(base);
+        int regressoes = 0;
+        System.out.printf(Locale.ROOT, "%-70s %14s %14s %9s %9s%n", "benchmark", "base", "atual", "variação", "erro");
+        for (Map.Entry<String, JsonNode> e : ler(atual).entrySet()) {
+            JsonNode anterior = anteriores.get(e.getKey());
+            if (anterior == null) {
+                continue;
+            }
+            double antes = anterior.path("primaryMetric").path("score").asDouble();
+            double agora = e.getValue().path("primaryMetric").path("score").asDouble();
+            // em throughput maior é melhor; nos modos de tempo, menor é melhor
+            boolean maiorMelhor = "thrpt".equals(e.getValue().path("mode").asText());
+            double variacao = antes == 0 ? 0 : (agora - antes) / antes * 100;
+            double piora = maiorMelhor ? -variacao : variacao;
+            // meia largura dos dois intervalos, em % da base
+            double erro = antes == 0 ? 0 : (erro(anterior) + erro(e.getValue())) / Math.abs(antes) * 100;
+            boolean regressao = piora > limite && piora > erro;
+            if (regressao) {
+                regressoes++;
+            }
+            System.out.printf(Locale.ROOT, "%-70s %14.3f %14.3f %+8.1f%% %8.1f%%%s%n",
+                    e.getKey(), antes, agora, variacao, erro,
+                    regressao ? "  REGRESSÃO" : piora > limite ? "  (dentro do erro)" : "");
+        }
+
+        if (regressoes > 0) {
+            System.out.println(regressoes + " benchmark(s) pioraram mais de " + limite + "% e além do erro da medição.");
+            System.exit(1);
+        }
+    }
+
+    // com uma iteração só o JMH não calcula o erro (NaN): vale a comparação direta
+    private static double erro(JsonNode resultado) {
+        double erro = resultado.path("primaryMetric").path("scoreError").asDouble(0);
+        return Double.isNaN(erro) ? 0 : Math.abs(erro);
+    }
+
+    // chave: nome do benchmark + parâmetros (ex.: custo=10)
+    private static Map<String, JsonNode> ler(File arquivo) throws IOException {
+        Map<String, JsonNode> resultado = new LinkedHashMap<>();
+        for (JsonNode b : new ObjectMapper().readTree(arquivo)) {
+            StringBuilder chave = new StringBuilder(b.path("benchmark").asText()
+                    .replace("com.notificacao.notificador.benchmark.", ""));
+            b.path("params").fields().forEachRemaining(p ->
+                    chave.append(' ').append(p.getKey()).append('=').append(p.getValue().asText()));
+            resultado.put(chave.toString(), b);
+        }
+        return resultado;
+    }
+}
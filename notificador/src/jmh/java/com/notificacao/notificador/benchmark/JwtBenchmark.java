@@ -0,0 +1,108 @@
+package com.notificacao.notificador.benchmark;
+
+import com.notificacao.notificador.config.JwtAuthenticationFilter;
+import com.notificacao.notificador.config.JwtProperties;
+import com.notificacao.notificador.service.JwtPrincipal;
+import com.notificacao.notificador.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Key;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de emitir um JWT e de autenticar uma requisição com ele: o caminho antigo (três parses com parser novo a cada
+ * chamada) contra {@link JwtService#autenticar} com e sem o cache de tokens verificados, e o
+ * {@link JwtAuthenticationFilter} completo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "MinhaSuperChaveSecretaQueDeveSerLongaDemais1234567890";
+
+    private Key key;
+    private String token;
+    private JwtService comCache;
+    private JwtService semCache;
+    private JwtAuthenticationFilter filtro;
+    private MockHttpServletRequest requisicao;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void preparar() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        comCache = new JwtService(propriedades(10_000));
+        semCache = new JwtService(propriedades(0));
+        token = comCache.gerarToken("admin@exemplo.com", Set.of("ROLE_ADMIN", "ROLE_USER"));
+        filtro = new JwtAuthenticationFilter(comCache, new SimpleMeterRegistry());
+        requisicao = new MockHttpServletRequest("GET", "/admin/emails/todos");
+        requisicao.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return comCache.gerarToken("admin@exemplo.com", Set.of("ROLE_ADMIN", "ROLE_USER"));
+    }
+
+    // o que o filtro fazia antes: validar, depois ler o e-mail, depois as roles
+    @Benchmark
+    public Object legadoTresParses() {
+        Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+        String email = Jwts.parserBuilder().setSigningKey(key).build()
+                .parseClaimsJws(token).getBody().getSubject();
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build()
+                .parseClaimsJws(token).getBody();
+        return email + claims.get("roles");
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> autenticarSemCache() {
+        return semCache.autenticar(token);
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> autenticarComCache() {
+        return comCache.autenticar(token);
+    }
+
+    @Benchmark
+    public Object filtroComCache() throws Exception {
+        filtro.doFilter(requisicao, new MockHttpServletResponse(), chain);
+        // o OncePerRequestFilter marca a requisição; limpa para a próxima iteração
+        requisicao.removeAttribute(JwtAuthenticationFilter.class.getName() + ".FILTERED");
+        Object auth = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return auth;
+    }
+
+    private static JwtProperties propriedades(long cacheMaximo) {
+        JwtProperties props = new JwtProperties();
+        props.setSecret(SECRET);
+        props.setExpirationMs(3_600_000);
+        props.setCacheMaximo(cacheMaximo);
+        return props;
+    }
+}
@@ -0,0 +1,66 @@
+package com.notificacao.notificador.benchmark;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem da mensagem como em {@code EmailService.enviarEmail}: multipart, UTF-8, corpo HTML.
+ * {@code serializar} inclui a codificação MIME que o transporte faz antes de enviar.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MimeMessageBenchmark {
+
+    private Session session;
+    private String html;
+
+    @Setup
+    public void preparar() throws IOException {
+        session = Session.getInstance(new Properties());
+        try (InputStream in = getClass().getResourceAsStream("/templates/email/redefinicao-senha.html")) {
+            html = new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                    .replace("{{link}}", "http://localhost:5173/reset-password?token=3f1c2a9e-0000-4000-8000-000000000000");
+        }
+    }
+
+    @Benchmark
+    public MimeMessage montar() throws Exception {
+        MimeMessage message = new MimeMessage(session);
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("notificatorproject@gmail.com");
+        helper.setTo("usuario@exemplo.com");
+        helper.setSubject("Redefinição de Senha - Notificator");
+        helper.setText(html, true);
+        message.saveChanges();
+        return message;
+    }
+
+    @Benchmark
+    public MimeMessage serializar() throws Exception {
+        MimeMessage message = montar();
+        message.writeTo(OutputStream.nullOutputStream());
+        return message;
+    }
+}
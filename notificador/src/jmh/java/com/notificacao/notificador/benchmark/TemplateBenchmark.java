@@ -0,0 +1,133 @@
+package com.notificacao.notificador.benchmark;
+
+import com.notificacao.notificador.config.TemplateProperties;
+import com.notificacao.notificador.repository.EmailTemplateRepository;
+import com.notificacao.notificador.service.EmailTemplateService;
+import com.notificacao.notificador.service.TemplateCompilado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renderização do e-mail de redefinição de senha: caminho antigo ({@code String.formatted} sobre o
+ * text block) contra o {@link TemplateCompilado}, direto e via {@link EmailTemplateService}
+ * (inclui a busca no cache por nome e locale).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    // cópia do text block que EmailTemplateService.buildPasswordResetEmail formatava a cada chamada
+    private static final String LEGADO = """
+            <!DOCTYPE html>
+            <html lang="pt-BR">
+            <head>
+                <meta charset="UTF-8">
+                <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                <title>Redefinição de Senha</title>
+                <style>
+                    body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; line-height: 1.6; color: #333; }
+                    .container { max-width: 600px; margin: 0 auto; padding: 20px; border: 1px solid #e0e0e0; border-radius: 8px; }
+                    .logo { text-align: center; margin-bottom: 20px; }
+                    .btn { display: inline-block; padding: 12px 24px; background-color: #4F46E5; color: white; text-decoration: none; border-radius: 6px; font-weight: bold; font-size: 16px; }
+                    .footer { margin-top: 30px; text-align: center; font-size: 0.8em; color: #777; }
+                    .code { background-color: #f3f4f6; padding: 10px; border-radius: 4px; font-family: monospace; }
+                    .security-note { background-color: #fef3c7; padding: 15px; border-radius: 6px; margin: 20px 0; }
+                </style>
+            </head>
+            <body>
+                <div class="container">
+                    <div class="logo">
+                        <h2 style="color: #4F46E5; margin-bottom: 5px;">Notificator</h2>
+                        <p style="margin-top: 0; color: #6B7280;">Sua solução inteligente</p>
+                    </div>
+                    
+                    <h2 style="color: #1F2937;">Redefinição de Senha</h2>
+                    
+                    <p>Olá,</p>
+                    
+                    <p>Recebemos uma solicitação para redefinir a senha da sua conta. Clique no botão abaixo para criar uma nova senha:</p>
+                    
+                    <p style="text-align: center; margin: 30px 0;">
+                        <a style="color: #FFF;" href="%s" class="btn">Redefinir Minha Senha</a>
+                    </p>
+                    
+                    <div class="security-note">
+                        <p><strong>Importante:</strong> Por questões de segurança, este link expirará em 15 minutos. Se você não solicitou a redefinição de senha, por favor ignore este e-mail ou entre em contato com nosso suporte.</p>
+                    </div>
+                    
+                    <p>Se tiver alguma dúvida ou precisar de ajuda, nossa equipe de suporte está à disposição.</p>
+                    
+                    <p>Atenciosamente,<br><strong>Equipe Notificator</strong></p>
+                    
+                    <div class="footer">
+                        <p>© 2023 Notificator. Todos os direitos reservados.</p>
+                        <p>Este é um e-mail automático, por favor não responda.</p>
+                    </div>
+                </div>
+            </body>
+            </html>
+            """;
+
+    private TemplateCompilado compilado;
+    private EmailTemplateService servico;
+    private int contador;
+
+    @Setup
+    public void carregar() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/templates/email/redefinicao-senha.html")) {
+            compilado = TemplateCompilado.compilar("redefinicao-senha", 0,
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        servico = new EmailTemplateService(semTemplatesNoBanco(), new TemplateProperties());
+    }
+
+    @Benchmark
+    public String formatted() {
+        String link = link();
+        return LEGADO.formatted(link, link);
+    }
+
+    @Benchmark
+    public String compilado() {
+        return compilado.render(Map.of("link", link()));
+    }
+
+    @Benchmark
+    public String servico() {
+        return servico.render("redefinicao-senha", Locale.forLanguageTag("pt-BR"), Map.of("link", link()));
+    }
+
+    // sem banco: todo template vem do classpath
+    private static EmailTemplateRepository semTemplatesNoBanco() {
+        return (EmailTemplateRepository) Proxy.newProxyInstance(
+                EmailTemplateRepository.class.getClassLoader(),
+                new Class<?>[]{EmailTemplateRepository.class},
+                (proxy, metodo, args) -> Optional.empty());
+    }
+
+    // link diferente a cada chamada, como no envio real
+    private String link() {
+        return "http://localhost:5173/redefinir-senha?token=" + (contador++);
+    }
+}
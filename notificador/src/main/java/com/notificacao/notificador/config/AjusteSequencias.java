@@ -0,0 +1,36 @@
+package com.notificacao.notificador.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bancos criados quando os ids eram IDENTITY já têm linhas; a sequence nova começa em 1.
+ * Aqui a sequence é avançada para depois do maior id existente (nunca recua).
+ */
+@Component
+public class AjusteSequencias {
+
+    private final JdbcTemplate jdbc;
+
+    // depende do EntityManagerFactory para rodar depois do ddl-auto criar as sequences
+    public AjusteSequencias(JdbcTemplate jdbc, EntityManagerFactory entityManagerFactory) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void ajustar() {
+        ajustar("email_log", "email_log_seq", 50);
+        ajustar("email_tentativa", "email_tentativa_seq", 1);
+    }
+
+    private void ajustar(String tabela, String sequencia, int alocacao) {
+        Long maiorId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabela, Long.class);
+        Long proximo = jdbc.queryForObject("SELECT NEXT VALUE FOR " + sequencia, Long.class);
+        // o Hibernate usa o bloco (valor - alocacao, valor]
+        if (maiorId != null && proximo != null && proximo - alocacao < maiorId) {
+            jdbc.execute("ALTER SEQUENCE " + sequencia + " RESTART WITH " + (maiorId + alocacao + 1));
+        }
+    }
+}
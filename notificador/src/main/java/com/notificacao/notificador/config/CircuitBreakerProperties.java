@@ -0,0 +1,67 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.circuit-breaker")
+public class CircuitBreakerProperties {
+    // últimas N chamadas consideradas no cálculo da taxa de falha...
+    private int tamanhoJanela = 50;
+    // ...desde que tenham ocorrido dentro deste intervalo
+    private long janelaMs = 60_000;
+    // abaixo disso o circuito não abre, mesmo com 100% de falha
+    private int minimoChamadas = 5;
+    private int taxaFalhaPercentual = 50;
+    private long tempoAbertoMs = 10 * 60 * 1000;
+    // envios de teste liberados no estado MEIO_ABERTO
+    private int chamadasMeioAberto = 3;
+
+    public int getTamanhoJanela() {
+        return tamanhoJanela;
+    }
+
+    public void setTamanhoJanela(int tamanhoJanela) {
+        this.tamanhoJanela = tamanhoJanela;
+    }
+
+    public long getJanelaMs() {
+        return janelaMs;
+    }
+
+    public void setJanelaMs(long janelaMs) {
+        this.janelaMs = janelaMs;
+    }
+
+    public int getMinimoChamadas() {
+        return minimoChamadas;
+    }
+
+    public void setMinimoChamadas(int minimoChamadas) {
+        this.minimoChamadas = minimoChamadas;
+    }
+
+    public int getTaxaFalhaPercentual() {
+        return taxaFalhaPercentual;
+    }
+
+    public void setTaxaFalhaPercentual(int taxaFalhaPercentual) {
+        this.taxaFalhaPercentual = taxaFalhaPercentual;
+    }
+
+    public long getTempoAbertoMs() {
+        return tempoAbertoMs;
+    }
+
+    public void setTempoAbertoMs(long tempoAbertoMs) {
+        this.tempoAbertoMs = tempoAbertoMs;
+    }
+
+    public int getChamadasMeioAberto() {
+        return chamadasMeioAberto;
+    }
+
+    public void setChamadasMeioAberto(int chamadasMeioAberto) {
+        this.chamadasMeioAberto = chamadasMeioAberto;
+    }
+}
@@ -0,0 +1,52 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.cluster")
+public class ClusterProperties {
+    // identificador desta instância nos leases; vazio = hostname + sufixo aleatório a cada start
+    private String no = "";
+
+    // validade do lease de um envio; renovado a cada terço enquanto a instância ainda o tem na fila
+    private long leaseMs = 30000;
+
+    // intervalo da varredura que reivindica envios pendentes sem dono (ou com lease vencido)
+    private long varreduraMs = 2000;
+
+    // máximo de envios reivindicados por varredura (limitado também pelo espaço livre na fila)
+    private int loteReivindicacao = 100;
+
+    public String getNo() {
+        return no;
+    }
+
+    public void setNo(String no) {
+        this.no = no;
+    }
+
+    public long getLeaseMs() {
+        return leaseMs;
+    }
+
+    public void setLeaseMs(long leaseMs) {
+        this.leaseMs = leaseMs;
+    }
+
+    public long getVarreduraMs() {
+        return varreduraMs;
+    }
+
+    public void setVarreduraMs(long varreduraMs) {
+        this.varreduraMs = varreduraMs;
+    }
+
+    public int getLoteReivindicacao() {
+        return loteReivindicacao;
+    }
+
+    public void setLoteReivindicacao(int loteReivindicacao) {
+        this.loteReivindicacao = loteReivindicacao;
+    }
+}
@@ -0,0 +1,126 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.envio")
+public class EnvioProperties {
+    // quantidade de threads que consomem a fila de envio
+    private int workers = 4;
+
+    // filas por prioridade: entre as filas com envios, cada uma recebe uma fração dos workers
+    // proporcional ao peso (8:4:1 = CRITICA fica com ~60% sob disputa, EM_MASSA com ~8%)
+    private int pesoCritica = 8;
+    private int pesoTransacional = 4;
+    private int pesoEmMassa = 1;
+    // workers que nunca pegam EM_MASSA: uma campanha não ocupa todos e o reset de senha não espera
+    private int workersReservados = 1;
+
+    // política de retry: atraso = min(backoffMaximoMs, backoffInicialMs * multiplicador^(n-1)) +/- jitter
+    private int maxTentativas = 5;
+    private long backoffInicialMs = 5000;
+    private double backoffMultiplicador = 2.0;
+    private long backoffMaximoMs = 10 * 60 * 1000;
+    private double jitter = 0.2;
+
+    // envio em lote: linhas gravadas por batch JDBC e profundidade máxima da fila antes de pausar a gravação
+    private int loteTamanhoChunk = 500;
+    private int loteMaxFila = 5000;
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getPesoCritica() {
+        return pesoCritica;
+    }
+
+    public void setPesoCritica(int pesoCritica) {
+        this.pesoCritica = pesoCritica;
+    }
+
+    public int getPesoTransacional() {
+        return pesoTransacional;
+    }
+
+    public void setPesoTransacional(int pesoTransacional) {
+        this.pesoTransacional = pesoTransacional;
+    }
+
+    public int getPesoEmMassa() {
+        return pesoEmMassa;
+    }
+
+    public void setPesoEmMassa(int pesoEmMassa) {
+        this.pesoEmMassa = pesoEmMassa;
+    }
+
+    public int getWorkersReservados() {
+        return workersReservados;
+    }
+
+    public void setWorkersReservados(int workersReservados) {
+        this.workersReservados = workersReservados;
+    }
+
+    public int getMaxTentativas() {
+        return maxTentativas;
+    }
+
+    public void setMaxTentativas(int maxTentativas) {
+        this.maxTentativas = maxTentativas;
+    }
+
+    public long getBackoffInicialMs() {
+        return backoffInicialMs;
+    }
+
+    public void setBackoffInicialMs(long backoffInicialMs) {
+        this.backoffInicialMs = backoffInicialMs;
+    }
+
+    public double getBackoffMultiplicador() {
+        return backoffMultiplicador;
+    }
+
+    public void setBackoffMultiplicador(double backoffMultiplicador) {
+        this.backoffMultiplicador = backoffMultiplicador;
+    }
+
+    public long getBackoffMaximoMs() {
+        return backoffMaximoMs;
+    }
+
+    public void setBackoffMaximoMs(long backoffMaximoMs) {
+        this.backoffMaximoMs = backoffMaximoMs;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(double jitter) {
+        this.jitter = jitter;
+    }
+
+    public int getLoteTamanhoChunk() {
+        return loteTamanhoChunk;
+    }
+
+    public void setLoteTamanhoChunk(int loteTamanhoChunk) {
+        this.loteTamanhoChunk = loteTamanhoChunk;
+    }
+
+    public int getLoteMaxFila() {
+        return loteMaxFila;
+    }
+
+    public void setLoteMaxFila(int loteMaxFila) {
+        this.loteMaxFila = loteMaxFila;
+    }
+}
@@ -0,0 +1,48 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.estatisticas")
+public class EstatisticasProperties {
+    // intervalo entre as gravações dos contadores em memória na tabela de resumo
+    private long intervaloMs = 60000;
+    // combinações minuto/status/domínio em memória; acima disso, domínios novos contam como "outros"
+    private int maxChaves = 10000;
+    // por quanto tempo os buckets por minuto ficam no banco (os por hora ficam mais)
+    private int retencaoMinutosHoras = 48;
+    private int retencaoHorasDias = 90;
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    public int getMaxChaves() {
+        return maxChaves;
+    }
+
+    public void setMaxChaves(int maxChaves) {
+        this.maxChaves = maxChaves;
+    }
+
+    public int getRetencaoMinutosHoras() {
+        return retencaoMinutosHoras;
+    }
+
+    public void setRetencaoMinutosHoras(int retencaoMinutosHoras) {
+        this.retencaoMinutosHoras = retencaoMinutosHoras;
+    }
+
+    public int getRetencaoHorasDias() {
+        return retencaoHorasDias;
+    }
+
+    public void setRetencaoHorasDias(int retencaoHorasDias) {
+        this.retencaoHorasDias = retencaoHorasDias;
+    }
+}
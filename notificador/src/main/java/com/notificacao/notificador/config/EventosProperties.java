@@ -0,0 +1,59 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.eventos")
+public class EventosProperties {
+    // eventos guardados em memória para quem reconecta com Last-Event-ID
+    private int historico = 1000;
+    // eventos ainda não entregues por assinante; estourou, o assinante é desconectado
+    private int bufferAssinante = 256;
+    // conexões SSE abertas ao mesmo tempo
+    private int maxAssinantes = 20;
+    // comentário periódico que mantém a conexão viva atrás de proxies
+    private long heartbeatMs = 15000;
+    // duração máxima de uma conexão; o cliente reconecta e retoma pelo último id
+    private long timeoutMs = 1800000;
+
+    public int getHistorico() {
+        return historico;
+    }
+
+    public void setHistorico(int historico) {
+        this.historico = historico;
+    }
+
+    public int getBufferAssinante() {
+        return bufferAssinante;
+    }
+
+    public void setBufferAssinante(int bufferAssinante) {
+        this.bufferAssinante = bufferAssinante;
+    }
+
+    public int getMaxAssinantes() {
+        return maxAssinantes;
+    }
+
+    public void setMaxAssinantes(int maxAssinantes) {
+        this.maxAssinantes = maxAssinantes;
+    }
+
+    public long getHeartbeatMs() {
+        return heartbeatMs;
+    }
+
+    public void setHeartbeatMs(long heartbeatMs) {
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+}
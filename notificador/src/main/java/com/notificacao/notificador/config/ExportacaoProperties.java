@@ -0,0 +1,29 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.exportacao")
+public class ExportacaoProperties {
+    // linhas trazidas do banco por ida ao cursor
+    private int fetchSize = 500;
+    // cada exportação segura uma conexão do pool até terminar
+    private int maxSimultaneas = 2;
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getMaxSimultaneas() {
+        return maxSimultaneas;
+    }
+
+    public void setMaxSimultaneas(int maxSimultaneas) {
+        this.maxSimultaneas = maxSimultaneas;
+    }
+}
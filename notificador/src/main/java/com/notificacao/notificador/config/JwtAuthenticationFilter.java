@@ -1,7 +1,8 @@
 package com.notificacao.notificador.config;
 
 import com.notificacao.notificador.service.JwtService;
-import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,15 +14,27 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final Timer autenticados;
+    private final Timer rejeitados;
 
-    public JwtAuthenticationFilter(JwtService jwtService) {
+    public JwtAuthenticationFilter(JwtService jwtService, MeterRegistry metricas) {
         this.jwtService = jwtService;
+        this.autenticados = tempoDoFiltro(metricas, "autenticado");
+        this.rejeitados = tempoDoFiltro(metricas, "rejeitado");
+    }
+
+    // só a autenticação do token; o restante da cadeia não entra na conta
+    private static Timer tempoDoFiltro(MeterRegistry metricas, String resultado) {
+        return Timer.builder("notificador.jwt.filtro")
+                .description("Tempo para autenticar o Bearer token")
+                .tag("resultado", resultado)
+                .register(metricas);
     }
 
     @Override
@@ -33,20 +46,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String header = req.getHeader("Authorization");
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            if (jwtService.validarToken(token)) {
-                String email = jwtService.obterEmailDoToken(token);
-                Set<String> roles = jwtService.obterRolesDoToken(token);
-
-                var authorities = roles.stream()
+            long t0 = System.nanoTime();
+            // um único parse; tokens repetidos saem do cache sem refazer o HMAC
+            var autenticado = jwtService.autenticar(token);
+            autenticado.ifPresent(principal -> {
+                var authorities = principal.roles().stream()
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toSet());
 
                 var auth = new UsernamePasswordAuthenticationToken(
-                        email, null, authorities);
+                        principal.email(), null, authorities);
 
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
                 SecurityContextHolder.getContext().setAuthentication(auth);
-            }
+            });
+            (autenticado.isPresent() ? autenticados : rejeitados).record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
         }
 
         chain.doFilter(req, res);
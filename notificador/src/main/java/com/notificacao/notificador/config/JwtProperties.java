@@ -9,6 +9,8 @@ import org.springframework.context.annotation.Configuration;
 public class JwtProperties {
     private String secret;
     private long expirationMs;
+    // tokens verificados mantidos em memória
+    private long cacheMaximo = 10_000;
 
     public String getSecret() {
         return secret;
@@ -25,5 +27,13 @@ public class JwtProperties {
     public void setExpirationMs(long expirationMs) {
         this.expirationMs = expirationMs;
     }
+
+    public long getCacheMaximo() {
+        return cacheMaximo;
+    }
+
+    public void setCacheMaximo(long cacheMaximo) {
+        this.cacheMaximo = cacheMaximo;
+    }
 }
 
@@ -0,0 +1,68 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.limite-dominio")
+public class LimiteDominioProperties {
+    // token bucket por domínio do destinatário
+    private double enviosPorSegundo = 5;
+    private int rajada = 10;
+
+    // token bucket do relay SMTP (todas as mensagens passam por ele)
+    private double relayEnviosPorSegundo = 20;
+    private int relayRajada = 40;
+
+    // limites do mapa de domínios: quantidade máxima e expiração por inatividade
+    private int maxDominios = 10_000;
+    private long ociosoExpiraMs = 30 * 60 * 1000;
+
+    public double getEnviosPorSegundo() {
+        return enviosPorSegundo;
+    }
+
+    public void setEnviosPorSegundo(double enviosPorSegundo) {
+        this.enviosPorSegundo = enviosPorSegundo;
+    }
+
+    public int getRajada() {
+        return rajada;
+    }
+
+    public void setRajada(int rajada) {
+        this.rajada = rajada;
+    }
+
+    public double getRelayEnviosPorSegundo() {
+        return relayEnviosPorSegundo;
+    }
+
+    public void setRelayEnviosPorSegundo(double relayEnviosPorSegundo) {
+        this.relayEnviosPorSegundo = relayEnviosPorSegundo;
+    }
+
+    public int getRelayRajada() {
+        return relayRajada;
+    }
+
+    public void setRelayRajada(int relayRajada) {
+        this.relayRajada = relayRajada;
+    }
+
+    public int getMaxDominios() {
+        return maxDominios;
+    }
+
+    public void setMaxDominios(int maxDominios) {
+        this.maxDominios = maxDominios;
+    }
+
+    public long getOciosoExpiraMs() {
+        return ociosoExpiraMs;
+    }
+
+    public void setOciosoExpiraMs(long ociosoExpiraMs) {
+        this.ociosoExpiraMs = ociosoExpiraMs;
+    }
+}
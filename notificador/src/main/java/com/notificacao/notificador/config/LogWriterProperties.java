@@ -0,0 +1,39 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.log-writer")
+public class LogWriterProperties {
+    // grava assim que o buffer atingir esse tamanho...
+    private int tamanhoLote = 200;
+    // ...ou a cada intervalo, o que vier primeiro
+    private long intervaloMs = 200;
+    // com o buffer cheio, quem registra grava o lote na própria thread
+    private int capacidadeBuffer = 10_000;
+
+    public int getTamanhoLote() {
+        return tamanhoLote;
+    }
+
+    public void setTamanhoLote(int tamanhoLote) {
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    public int getCapacidadeBuffer() {
+        return capacidadeBuffer;
+    }
+
+    public void setCapacidadeBuffer(int capacidadeBuffer) {
+        this.capacidadeBuffer = capacidadeBuffer;
+    }
+}
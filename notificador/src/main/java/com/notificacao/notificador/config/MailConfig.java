@@ -0,0 +1,38 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Properties;
+
+/**
+ * Substitui o JavaMailSender da auto-configuração por um que mantém conexões SMTP abertas.
+ * Continua lendo as mesmas propriedades {@code spring.mail.*}.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Bean
+    public PooledJavaMailSender mailSender(MailProperties mail, SmtpPoolProperties poolProperties) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(poolProperties);
+        sender.setHost(mail.getHost());
+        if (mail.getPort() != null) {
+            sender.setPort(mail.getPort());
+        }
+        sender.setUsername(mail.getUsername());
+        sender.setPassword(mail.getPassword());
+        sender.setProtocol(mail.getProtocol());
+        if (mail.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mail.getDefaultEncoding().name());
+        }
+        if (!mail.getProperties().isEmpty()) {
+            Properties properties = new Properties();
+            properties.putAll(mail.getProperties());
+            sender.setJavaMailProperties(properties);
+        }
+        return sender;
+    }
+}
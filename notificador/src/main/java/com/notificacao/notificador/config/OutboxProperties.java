@@ -0,0 +1,30 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.outbox")
+public class OutboxProperties {
+    // varredura periódica do outbox; após cada commit o relay também é acordado na hora
+    private long intervaloMs = 1000;
+
+    // linhas reivindicadas por transação do relay
+    private int tamanhoLote = 100;
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    public int getTamanhoLote() {
+        return tamanhoLote;
+    }
+
+    public void setTamanhoLote(int tamanhoLote) {
+        this.tamanhoLote = tamanhoLote;
+    }
+}
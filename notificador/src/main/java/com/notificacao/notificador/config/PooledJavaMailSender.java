@@ -0,0 +1,90 @@
+package com.notificacao.notificador.config;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link JavaMailSenderImpl} que envia pelas conexões do {@link SmtpTransportPool}
+ * em vez de abrir e fechar uma sessão SMTP a cada chamada de {@code send}.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final SmtpTransportPool pool;
+
+    public PooledJavaMailSender(SmtpPoolProperties props) {
+        this.pool = new SmtpTransportPool(this::connectTransport, props);
+    }
+
+    public SmtpTransportPool getPool() {
+        return pool;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> falhas = new LinkedHashMap<>();
+
+        for (int i = 0; i < mimeMessages.length; i++) {
+            MimeMessage mimeMessage = mimeMessages[i];
+            Object original = (originalMessages != null ? originalMessages[i] : mimeMessage);
+            try {
+                prepararEnvio(mimeMessage);
+                Address[] destinatarios = mimeMessage.getAllRecipients();
+                try {
+                    enviar(mimeMessage, destinatarios);
+                } catch (MessagingException e) {
+                    if (e instanceof SendFailedException) {
+                        throw e;
+                    }
+                    // conexão reaproveitada pode ter caído: tenta uma vez numa conexão nova
+                    enviar(mimeMessage, destinatarios);
+                }
+            } catch (Exception e) {
+                falhas.put(original, e);
+            }
+        }
+
+        if (!falhas.isEmpty()) {
+            throw new MailSendException(falhas);
+        }
+    }
+
+    private void enviar(MimeMessage mimeMessage, Address[] destinatarios) throws MessagingException {
+        SmtpTransportPool.Conexao conexao = pool.emprestar();
+        boolean ok = false;
+        try {
+            conexao.transport().sendMessage(mimeMessage, destinatarios != null ? destinatarios : new Address[0]);
+            ok = true;
+        } finally {
+            pool.devolver(conexao, ok);
+        }
+    }
+
+    // mesmo preparo feito por JavaMailSenderImpl antes do envio
+    private void prepararEnvio(MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pool.fechar();
+    }
+}
@@ -0,0 +1,59 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.reset-token")
+public class ResetTokenProperties {
+    // "banco" ou "memoria" (só para um único nó)
+    private String armazenamento = "banco";
+    private long validadeMinutos = 15;
+    // chave HMAC que deriva o token da semente gravada no e-mail; a mesma em todos os nós.
+    // Vazia: uma chave aleatória por processo (só serve para um único nó, sem restart no meio)
+    private String chave = "";
+
+    // limpeza dos tokens expirados: a cada intervalo, em lotes de até varreduraLote linhas
+    private long varreduraIntervaloMs = 60 * 1000;
+    private int varreduraLote = 500;
+
+    public String getArmazenamento() {
+        return armazenamento;
+    }
+
+    public void setArmazenamento(String armazenamento) {
+        this.armazenamento = armazenamento;
+    }
+
+    public long getValidadeMinutos() {
+        return validadeMinutos;
+    }
+
+    public void setValidadeMinutos(long validadeMinutos) {
+        this.validadeMinutos = validadeMinutos;
+    }
+
+    public String getChave() {
+        return chave;
+    }
+
+    public void setChave(String chave) {
+        this.chave = chave;
+    }
+
+    public long getVarreduraIntervaloMs() {
+        return varreduraIntervaloMs;
+    }
+
+    public void setVarreduraIntervaloMs(long varreduraIntervaloMs) {
+        this.varreduraIntervaloMs = varreduraIntervaloMs;
+    }
+
+    public int getVarreduraLote() {
+        return varreduraLote;
+    }
+
+    public void setVarreduraLote(int varreduraLote) {
+        this.varreduraLote = varreduraLote;
+    }
+}
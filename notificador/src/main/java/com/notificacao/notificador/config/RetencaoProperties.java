@@ -0,0 +1,98 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.retencao")
+public class RetencaoProperties {
+    // logs concluídos com sucesso (ou reenviados) mais antigos que isso saem de email_log para o arquivo
+    private int arquivarAposDias = 7;
+    // falhas ficam mais em email_log: é lá que o painel lista e reenvia
+    private int arquivarFalhaAposDias = 30;
+    // no arquivo, sucessos são apagados antes; falhas ficam mais tempo para investigação
+    private int purgarSucessoAposDias = 90;
+    private int purgarFalhaAposDias = 365;
+    // conteúdo em email_corpo sem nenhuma referência e sem uso há mais que isso é apagado
+    private int purgarCorpoSemUsoDias = 2;
+
+    // intervalo entre execuções do job e linhas movidas/apagadas por transação
+    private long intervaloMs = 300000;
+    private int tamanhoLote = 500;
+    // pausa entre lotes como múltiplo da duração do lote (4 = job ativo ~20% do tempo)
+    private double fatorPausa = 4;
+    // com mais envios que isso na fila, o job para e tenta na próxima execução
+    private int filaMaxima = 100;
+
+    public int getArquivarAposDias() {
+        return arquivarAposDias;
+    }
+
+    public void setArquivarAposDias(int arquivarAposDias) {
+        this.arquivarAposDias = arquivarAposDias;
+    }
+
+    public int getArquivarFalhaAposDias() {
+        return arquivarFalhaAposDias;
+    }
+
+    public void setArquivarFalhaAposDias(int arquivarFalhaAposDias) {
+        this.arquivarFalhaAposDias = arquivarFalhaAposDias;
+    }
+
+    public int getPurgarSucessoAposDias() {
+        return purgarSucessoAposDias;
+    }
+
+    public void setPurgarSucessoAposDias(int purgarSucessoAposDias) {
+        this.purgarSucessoAposDias = purgarSucessoAposDias;
+    }
+
+    public int getPurgarFalhaAposDias() {
+        return purgarFalhaAposDias;
+    }
+
+    public void setPurgarFalhaAposDias(int purgarFalhaAposDias) {
+        this.purgarFalhaAposDias = purgarFalhaAposDias;
+    }
+
+    public int getPurgarCorpoSemUsoDias() {
+        return purgarCorpoSemUsoDias;
+    }
+
+    public void setPurgarCorpoSemUsoDias(int purgarCorpoSemUsoDias) {
+        this.purgarCorpoSemUsoDias = purgarCorpoSemUsoDias;
+    }
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    public int getTamanhoLote() {
+        return tamanhoLote;
+    }
+
+    public void setTamanhoLote(int tamanhoLote) {
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    public double getFatorPausa() {
+        return fatorPausa;
+    }
+
+    public void setFatorPausa(double fatorPausa) {
+        this.fatorPausa = fatorPausa;
+    }
+
+    public int getFilaMaxima() {
+        return filaMaxima;
+    }
+
+    public void setFilaMaxima(int filaMaxima) {
+        this.filaMaxima = filaMaxima;
+    }
+}
@@ -1,6 +1,8 @@
 package com.notificacao.notificador.config;
 
 import com.notificacao.notificador.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -20,15 +22,17 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtService jwtService;
+    private final MeterRegistry metricas;
 
-    public SecurityConfig(JwtService jwtService) {
+    public SecurityConfig(JwtService jwtService, MeterRegistry metricas) {
         this.jwtService = jwtService;
+        this.metricas = metricas;
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         // nosso filtro JWT
-        var jwtFilter = new JwtAuthenticationFilter(jwtService);
+        var jwtFilter = new JwtAuthenticationFilter(jwtService, metricas);
 
         http
                 .cors(Customizer.withDefaults())
@@ -36,7 +40,12 @@ public class SecurityConfig {
                 // adiciona o JWT filter antes do processo de autenticação por formulário
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
+                        // a requisição original já foi autorizada; o dispatch ASYNC das respostas
+                        // em streaming chega sem o token reprocessado
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**").permitAll()
+                        // scrape do Prometheus sem token; em produção, prefira management.server.port interno
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,97 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.senha")
+public class SenhaProperties {
+    // custo do BCrypt; hashes com custo menor são refeitos no próximo login
+    private int custoBcrypt = 10;
+
+    // pool de hashing: threads (0 = número de núcleos) e quantas tarefas podem esperar na fila
+    private int threads = 0;
+    private int maxFila = 100;
+
+    // limites de tentativas antes de qualquer trabalho de BCrypt
+    private double tentativasPorMinutoIp = 30;
+    private int rajadaIp = 10;
+    private double tentativasPorMinutoEmail = 6;
+    private int rajadaEmail = 5;
+
+    // limites dos mapas de IPs/e-mails: quantidade máxima e expiração por inatividade
+    private int maxChaves = 100_000;
+    private long ociosoExpiraMs = 15 * 60 * 1000;
+
+    public int getCustoBcrypt() {
+        return custoBcrypt;
+    }
+
+    public void setCustoBcrypt(int custoBcrypt) {
+        this.custoBcrypt = custoBcrypt;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getMaxFila() {
+        return maxFila;
+    }
+
+    public void setMaxFila(int maxFila) {
+        this.maxFila = maxFila;
+    }
+
+    public double getTentativasPorMinutoIp() {
+        return tentativasPorMinutoIp;
+    }
+
+    public void setTentativasPorMinutoIp(double tentativasPorMinutoIp) {
+        this.tentativasPorMinutoIp = tentativasPorMinutoIp;
+    }
+
+    public int getRajadaIp() {
+        return rajadaIp;
+    }
+
+    public void setRajadaIp(int rajadaIp) {
+        this.rajadaIp = rajadaIp;
+    }
+
+    public double getTentativasPorMinutoEmail() {
+        return tentativasPorMinutoEmail;
+    }
+
+    public void setTentativasPorMinutoEmail(double tentativasPorMinutoEmail) {
+        this.tentativasPorMinutoEmail = tentativasPorMinutoEmail;
+    }
+
+    public int getRajadaEmail() {
+        return rajadaEmail;
+    }
+
+    public void setRajadaEmail(int rajadaEmail) {
+        this.rajadaEmail = rajadaEmail;
+    }
+
+    public int getMaxChaves() {
+        return maxChaves;
+    }
+
+    public void setMaxChaves(int maxChaves) {
+        this.maxChaves = maxChaves;
+    }
+
+    public long getOciosoExpiraMs() {
+        return ociosoExpiraMs;
+    }
+
+    public void setOciosoExpiraMs(long ociosoExpiraMs) {
+        this.ociosoExpiraMs = ociosoExpiraMs;
+    }
+}
@@ -0,0 +1,49 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.smtp.pool")
+public class SmtpPoolProperties {
+    // conexões SMTP autenticadas mantidas abertas
+    private int tamanho = 4;
+    // conexões ociosas há mais tempo que isso são validadas com NOOP antes do uso
+    private long validarAposOciosoMs = 30_000;
+    // após esse número de mensagens a sessão é encerrada e reaberta
+    private int maxMensagensPorSessao = 500;
+    // tempo máximo esperando uma conexão livre
+    private long esperaMaxMs = 30_000;
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    public void setTamanho(int tamanho) {
+        this.tamanho = tamanho;
+    }
+
+    public long getValidarAposOciosoMs() {
+        return validarAposOciosoMs;
+    }
+
+    public void setValidarAposOciosoMs(long validarAposOciosoMs) {
+        this.validarAposOciosoMs = validarAposOciosoMs;
+    }
+
+    public int getMaxMensagensPorSessao() {
+        return maxMensagensPorSessao;
+    }
+
+    public void setMaxMensagensPorSessao(int maxMensagensPorSessao) {
+        this.maxMensagensPorSessao = maxMensagensPorSessao;
+    }
+
+    public long getEsperaMaxMs() {
+        return esperaMaxMs;
+    }
+
+    public void setEsperaMaxMs(long esperaMaxMs) {
+        this.esperaMaxMs = esperaMaxMs;
+    }
+}
@@ -0,0 +1,157 @@
+package com.notificacao.notificador.config;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de conexões SMTP ({@link Transport}) já autenticadas, reutilizadas entre envios.
+ * Evita o handshake TCP + STARTTLS + AUTH a cada mensagem.
+ */
+public class SmtpTransportPool {
+
+    private final Callable<Transport> conectar;
+    private final SmtpPoolProperties props;
+    private final BlockingQueue<Conexao> ociosas;
+    private final Semaphore permissoes;
+
+    private final AtomicInteger emUso = new AtomicInteger();
+    private final LongAdder conexoesAbertas = new LongAdder();
+    private final LongAdder falhasHandshake = new LongAdder();
+    private final LongAdder tempoConexaoNanos = new LongAdder();
+    private final LongAdder mensagensEnviadas = new LongAdder();
+
+    public SmtpTransportPool(Callable<Transport> conectar, SmtpPoolProperties props) {
+        int tamanho = Math.max(1, props.getTamanho());
+        this.conectar = conectar;
+        this.props = props;
+        this.ociosas = new ArrayBlockingQueue<>(tamanho);
+        this.permissoes = new Semaphore(tamanho, true);
+    }
+
+    /**
+     * Obtém uma conexão exclusiva; deve ser devolvida com {@link #devolver(Conexao, boolean)}.
+     */
+    public Conexao emprestar() throws MessagingException {
+        try {
+            if (!permissoes.tryAcquire(props.getEsperaMaxMs(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Tempo esgotado aguardando conexão SMTP livre");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrompido aguardando conexão SMTP", e);
+        }
+
+        try {
+            Conexao conexao;
+            while ((conexao = ociosas.poll()) != null) {
+                if (conexao.valida(props.getValidarAposOciosoMs())) {
+                    emUso.incrementAndGet();
+                    return conexao;
+                }
+                conexao.fechar();
+            }
+
+            conexao = abrir();
+            emUso.incrementAndGet();
+            return conexao;
+        } catch (MessagingException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devolve a conexão ao pool. Conexões que tiveram erro ou atingiram o limite de
+     * mensagens por sessão são fechadas; a próxima requisição abre outra.
+     */
+    public void devolver(Conexao conexao, boolean ok) {
+        emUso.decrementAndGet();
+        try {
+            if (ok) {
+                mensagensEnviadas.increment();
+                conexao.mensagens++;
+            }
+            conexao.ultimoUso = System.nanoTime();
+            if (!ok || conexao.mensagens >= props.getMaxMensagensPorSessao() || !ociosas.offer(conexao)) {
+                conexao.fechar();
+            }
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    public void fechar() {
+        Conexao conexao;
+        while ((conexao = ociosas.poll()) != null) {
+            conexao.fechar();
+        }
+    }
+
+    public Metricas metricas() {
+        long abertas = conexoesAbertas.sum();
+        double mediaConexaoMs = abertas == 0 ? 0 : tempoConexaoNanos.sum() / 1_000_000.0 / abertas;
+        return new Metricas(emUso.get(), ociosas.size(), abertas, falhasHandshake.sum(),
+                mediaConexaoMs, mensagensEnviadas.sum());
+    }
+
+    private Conexao abrir() throws MessagingException {
+        long t0 = System.nanoTime();
+        try {
+            Transport transport = conectar.call();
+            tempoConexaoNanos.add(System.nanoTime() - t0);
+            conexoesAbertas.increment();
+            return new Conexao(transport);
+        } catch (MessagingException | RuntimeException e) {
+            falhasHandshake.increment();
+            throw e;
+        } catch (Exception e) {
+            falhasHandshake.increment();
+            throw new MessagingException("Falha ao conectar no servidor SMTP", e);
+        }
+    }
+
+    public static class Conexao {
+        private final Transport transport;
+        private long ultimoUso = System.nanoTime();
+        private int mensagens;
+
+        Conexao(Transport transport) {
+            this.transport = transport;
+        }
+
+        public Transport transport() {
+            return transport;
+        }
+
+        // Transport.isConnected() do SMTP envia NOOP, então só validamos conexões ociosas há algum tempo
+        boolean valida(long validarAposOciosoMs) {
+            if (System.nanoTime() - ultimoUso < TimeUnit.MILLISECONDS.toNanos(validarAposOciosoMs)) {
+                return true;
+            }
+            try {
+                return transport.isConnected();
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        void fechar() {
+            try {
+                transport.close();
+            } catch (MessagingException | RuntimeException ignored) {
+                // conexão já estava quebrada
+            }
+        }
+    }
+
+    public record Metricas(int emUso, int ociosas, long conexoesAbertas, long falhasHandshake,
+                           double tempoMedioConexaoMs, long mensagensEnviadas) {}
+}
@@ -0,0 +1,20 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.templates")
+public class TemplateProperties {
+    // templates compilados são relidos do banco depois disso (em segundo plano, servindo o atual
+    // enquanto isso): a alteração feita em outra instância aparece aqui em no máximo esse tempo
+    private long revalidarMs = 30000;
+
+    public long getRevalidarMs() {
+        return revalidarMs;
+    }
+
+    public void setRevalidarMs(long revalidarMs) {
+        this.revalidarMs = revalidarMs;
+    }
+}
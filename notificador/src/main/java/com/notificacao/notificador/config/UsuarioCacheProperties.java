@@ -0,0 +1,38 @@
+package com.notificacao.notificador.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notificador.cache-usuario")
+public class UsuarioCacheProperties {
+    private int maximo = 10_000;
+    // usuários encontrados
+    private long ttlMs = 5 * 60 * 1000;
+    // e-mails não cadastrados (ex.: forgot-password com e-mails aleatórios)
+    private long ttlNegativoMs = 60 * 1000;
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+    public void setMaximo(int maximo) {
+        this.maximo = maximo;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public long getTtlNegativoMs() {
+        return ttlNegativoMs;
+    }
+
+    public void setTtlNegativoMs(long ttlNegativoMs) {
+        this.ttlNegativoMs = ttlNegativoMs;
+    }
+}
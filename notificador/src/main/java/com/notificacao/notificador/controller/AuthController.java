@@ -3,40 +3,62 @@ import com.notificacao.notificador.dto.UsuarioCadastroDTO;
 import com.notificacao.notificador.model.*;
 import com.notificacao.notificador.repository.*;
 import com.notificacao.notificador.service.*;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
 
     private final UsuarioRepository usuarioRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final SenhaService senhaService;
+    private final LimiteLoginService limiteLogin;
+    private final UsuarioCacheService usuarioCache;
     private final JwtService jwtService;
-    private final PasswordResetTokenRepository resetTokenRepository;
-    private final NotificacaoEmailService notificacaoEmailService;
-    private final EmailTemplateService emailTemplateService;
+    private final ResetTokenService resetTokenService;
+    private final OutboxService outbox;
+    private final TransactionTemplate transacao;
+    private final ConteudoEmailService conteudoEmail;
+    // onde continua o trabalho depois do hash: o pool do SenhaService é só para o BCrypt
+    private final Executor tarefas;
 
     public AuthController(UsuarioRepository usuarioRepository,
                           JwtService jwtService,
-                          PasswordResetTokenRepository resetTokenRepository,
-                          NotificacaoEmailService notificacaoEmailService,
-                          EmailTemplateService emailTemplateService) {
+                          ResetTokenService resetTokenService,
+                          OutboxService outbox,
+                          TransactionTemplate transacao,
+                          ConteudoEmailService conteudoEmail,
+                          SenhaService senhaService,
+                          LimiteLoginService limiteLogin,
+                          UsuarioCacheService usuarioCache,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                          Executor tarefas) {
         this.usuarioRepository = usuarioRepository;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.senhaService = senhaService;
+        this.limiteLogin = limiteLogin;
+        this.usuarioCache = usuarioCache;
         this.jwtService = jwtService;
-        this.resetTokenRepository = resetTokenRepository;
-        this.notificacaoEmailService         = notificacaoEmailService;
-        this.emailTemplateService = emailTemplateService;
+        this.resetTokenService = resetTokenService;
+        this.outbox = outbox;
+        this.transacao = transacao;
+        this.conteudoEmail = conteudoEmail;
+        this.tarefas = tarefas;
     }
 
     @GetMapping("/me")
@@ -48,19 +70,20 @@ public class AuthController {
             }
 
             String token = authHeader.substring(7);
-            if (!jwtService.validarToken(token)) {
+            Optional<JwtPrincipal> principal = jwtService.autenticar(token);
+            if (principal.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
             // Obter usuário
-            String email = jwtService.obterEmailDoToken(token);
-            Usuario usuario = usuarioRepository.findByEmail(email)
+            String email = principal.get().email();
+            UsuarioCacheService.UsuarioResumo usuario = usuarioCache.buscar(email)
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
             // Construir resposta
             Map<String, Object> response = new LinkedHashMap<>();
-            response.put("email", usuario.getEmail());
-            response.put("roles", usuario.getRoles());
+            response.put("email", usuario.email());
+            response.put("roles", usuario.roles());
 
             return ResponseEntity.ok(response);
 
@@ -70,10 +93,19 @@ public class AuthController {
         }
     }
 
+    // Os endpoints com BCrypt devolvem CompletableFuture: a thread do Tomcat é liberada
+    // enquanto o hash roda no pool do SenhaService. O que vem depois e usa o banco segue em
+    // tarefas, para uma conexão lenta não ocupar uma thread do BCrypt
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody @Valid UsuarioCadastroDTO dto) {
-        if (usuarioRepository.findByEmail(dto.email()).isPresent()) {
-            return ResponseEntity.badRequest().body("E-mail ja cadastrado");
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody @Valid UsuarioCadastroDTO dto,
+                                                         HttpServletRequest req) {
+        long espera = limiteLogin.reservar(req.getRemoteAddr(), null);
+        if (espera > 0) {
+            return CompletableFuture.completedFuture(muitasTentativas(espera));
+        }
+
+        if (usuarioCache.buscar(dto.email()).isPresent()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("E-mail ja cadastrado"));
         }
 
         Set<String> roles = new HashSet<>();
@@ -83,86 +115,156 @@ public class AuthController {
             roles.add("ROLE_USER");
         }
 
-        Usuario novo = Usuario.builder()
-                .email(dto.email())
-                .senha(passwordEncoder.encode(dto.senha()))
-                .roles(roles)
-                .build();
-
-        usuarioRepository.save(novo);
-        return ResponseEntity.ok("Usuario registrado com sucesso.");
+        try {
+            return senhaService.codificar(dto.senha()).thenApplyAsync(hash -> {
+                Usuario novo = Usuario.builder()
+                        .email(dto.email())
+                        .senha(hash)
+                        .roles(roles)
+                        .build();
+
+                usuarioRepository.save(novo);
+                // descarta o "não cadastrado" guardado pela verificação acima
+                usuarioCache.invalidar(dto.email());
+                return ResponseEntity.ok("Usuario registrado com sucesso.");
+            }, tarefas);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(servidorOcupado());
+        }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody UsuarioCadastroDTO dto) {
-        var usuarioOpt = usuarioRepository.findByEmail(dto.email());
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody UsuarioCadastroDTO dto, HttpServletRequest req) {
+        long espera = limiteLogin.reservar(req.getRemoteAddr(), dto.email());
+        if (espera > 0) {
+            return CompletableFuture.completedFuture(muitasTentativas(espera));
+        }
+
+        var usuarioOpt = usuarioCache.buscar(dto.email());
         if (usuarioOpt.isEmpty()) {
-            return ResponseEntity.status(401).body("Usuário ou senha inválidos");
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).body("Usuário ou senha inválidos"));
         }
 
         var usuario = usuarioOpt.get();
-        if (!passwordEncoder.matches(dto.senha(), usuario.getSenha())) {
-            return ResponseEntity.status(401).body("Usuário ou senha inválidos");
+        try {
+            return senhaService.confere(dto.senha(), usuario.senha()).thenApply(ok -> {
+                if (!ok) {
+                    return ResponseEntity.status(401).body("Usuário ou senha inválidos");
+                }
+                if (senhaService.precisaRehash(usuario.senha())) {
+                    atualizarHash(usuario, dto.senha());
+                }
+
+                String token = jwtService.gerarToken(usuario.email(), usuario.roles());
+                return ResponseEntity.ok(new LoginResponse(token));
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(servidorOcupado());
         }
+    }
 
-        String token = jwtService.gerarToken(usuario.getEmail(), usuario.getRoles());
-        return ResponseEntity.ok(new LoginResponse(token));
+    // custo do BCrypt aumentou desde que o hash foi gerado: refaz em segundo plano, sem atrasar o login
+    private void atualizarHash(UsuarioCacheService.UsuarioResumo resumo, String senha) {
+        try {
+            senhaService.codificar(senha).thenAcceptAsync(novoHash -> {
+                usuarioRepository.findById(resumo.id()).ifPresent(usuario -> {
+                    usuario.setSenha(novoHash);
+                    usuarioRepository.save(usuario);
+                });
+                usuarioCache.invalidar(resumo.email());
+            }, tarefas);
+        } catch (RejectedExecutionException e) {
+            // fica para o próximo login
+        }
     }
 
     @PostMapping("/forgot-password")
-    public ResponseEntity<?> forgotPassword(@RequestBody Map<String, String> body) {
+    public ResponseEntity<?> forgotPassword(@RequestBody Map<String, String> body, HttpServletRequest req) {
         String email = body.get("email");
 
-        Optional<Usuario> optionalUser = usuarioRepository.findByEmail(email);
+        long espera = limiteLogin.reservar(req.getRemoteAddr(), email);
+        if (espera > 0) {
+            return muitasTentativas(espera);
+        }
+
+        // e-mails não cadastrados saem do cache negativo sem consultar o banco
+        Optional<UsuarioCacheService.UsuarioResumo> optionalUser = usuarioCache.buscar(email);
         if (optionalUser.isEmpty()) {
             return ResponseEntity.ok("Se o e-mail estiver cadastrado, você receberá um link de redefinição.");
         }
 
-        Usuario usuario = optionalUser.get();
-
-        resetTokenRepository.findByUsuario(usuario)
-                .ifPresent(resetTokenRepository::delete);
-
-        String token = UUID.randomUUID().toString();
-
-        PasswordResetToken resetToken = new PasswordResetToken();
-        resetToken.setToken(token);
-        resetToken.setUsuario(usuario);
-        resetToken.setExpiration(LocalDateTime.now().plusMinutes(15));
-        resetTokenRepository.save(resetToken);
-
-        String link = "http://localhost:5173/reset-password?token=" + token;
-        String assunto = "Redefinição de Senha - Notificator";
-        String mensagemHTML = emailTemplateService.buildPasswordResetEmail(link);
-
-        notificacaoEmailService.enviarComLog(email, assunto, mensagemHTML);
+        // o log guarda só o template e o link, não o HTML renderizado. A referência ao template
+        // (que pode gravar a fonte em email_corpo) sai antes da transação: dentro dela, cada
+        // requisição seguraria duas conexões do pool
+        ConteudoEmail modelo = conteudoEmail.deTemplate(ResetTokenService.TEMPLATE, null, Map.of());
+
+        // token e e-mail na mesma transação: ou os dois são gravados, ou nenhum;
+        // o envio SMTP acontece depois, pelo relay do outbox e pelos workers da fila
+        transacao.executeWithoutResult(status -> {
+            // substitui o token anterior do usuário, se houver. O link gravado leva só a
+            // referência ao token; ele entra no lugar dela quando o e-mail é enviado
+            String token = resetTokenService.emitir(optionalUser.get().id(), email);
+
+            String link = "http://localhost:5173/reset-password?token=" + token;
+            String assunto = "Redefinição de Senha - Notificator";
+            // o link vale 15 minutos, então o e-mail vai na fila CRITICA, à frente de qualquer envio em lote
+            outbox.registrar(email, assunto,
+                    conteudoEmail.comVariaveis(modelo, Map.of("link", link)),
+                    Prioridade.CRITICA);
+        });
 
         return ResponseEntity.ok("Se o e-mail estiver cadastrado, você receberá um link de redefinição.");
     }
 
     @PostMapping("/reset-password")
-    public ResponseEntity<?> resetPassword(@RequestBody Map<String, String> body) {
+    public CompletableFuture<ResponseEntity<?>> resetPassword(@RequestBody Map<String, String> body,
+                                                              HttpServletRequest req) {
         String token = body.get("token");
         String novaSenha = body.get("novaSenha");
 
-        Optional<PasswordResetToken> optToken = resetTokenRepository.findByToken(token);
+        long espera = limiteLogin.reservar(req.getRemoteAddr(), null);
+        if (espera > 0) {
+            return CompletableFuture.completedFuture(muitasTentativas(espera));
+        }
+
+        // consumido antes do hash: de duas requisições com o mesmo token, só uma passa daqui.
+        // Se o pool do BCrypt recusar a tarefa, o link já foi gasto e o usuário pede outro
+        Optional<ResetTokenStore.TokenReset> optToken = resetTokenService.consumir(token);
         if (optToken.isEmpty()) {
-            return ResponseEntity.badRequest().body("Token inválido.");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Token inválido."));
         }
 
-        PasswordResetToken resetToken = optToken.get();
+        ResetTokenStore.TokenReset resetToken = optToken.get();
 
-        if (resetToken.getExpiration().isBefore(LocalDateTime.now())) {
-            return ResponseEntity.badRequest().body("Token expirado.");
+        if (resetToken.expiracao().isBefore(LocalDateTime.now())) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Token expirado."));
         }
 
-        Usuario usuario = resetToken.getUsuario();
-        usuario.setSenha(passwordEncoder.encode(novaSenha));
-        usuarioRepository.save(usuario);
+        try {
+            return senhaService.codificar(novaSenha).thenApplyAsync(hash -> {
+                Usuario usuario = usuarioRepository.findById(resetToken.usuarioId())
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Token inválido."));
+                usuario.setSenha(hash);
+                usuarioRepository.save(usuario);
+                usuarioCache.invalidar(usuario.getEmail());
+
+                return ResponseEntity.ok("Senha redefinida com sucesso.");
+            }, tarefas);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(servidorOcupado());
+        }
+    }
 
-        resetTokenRepository.delete(resetToken);
+    private static ResponseEntity<?> muitasTentativas(long esperaMs) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (esperaMs + 999) / 1000)))
+                .body("Muitas tentativas. Tente novamente em instantes.");
+    }
 
-        return ResponseEntity.ok("Senha redefinida com sucesso.");
+    private static ResponseEntity<?> servidorOcupado() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Servidor ocupado. Tente novamente em instantes.");
     }
 
 
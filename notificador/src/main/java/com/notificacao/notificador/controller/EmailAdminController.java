@@ -1,71 +1,357 @@
 package com.notificacao.notificador.controller;
 
+import com.notificacao.notificador.dto.EmailLogArquivadoDTO;
+import com.notificacao.notificador.dto.EmailLogResumoDTO;
+import com.notificacao.notificador.dto.LoteEnvioDTO;
+import com.notificacao.notificador.dto.PaginaDTO;
 import com.notificacao.notificador.model.EmailLog;
+import com.notificacao.notificador.model.EmailTentativa;
+import com.notificacao.notificador.model.LoteEnvio;
+import com.notificacao.notificador.model.Prioridade;
 import com.notificacao.notificador.repository.EmailLogRepository;
-import com.notificacao.notificador.service.NotificacaoEmailService;
+import com.notificacao.notificador.repository.EmailTentativaRepository;
+import com.notificacao.notificador.repository.LoteEnvioRepository;
+import com.notificacao.notificador.service.ConteudoEmail;
+import com.notificacao.notificador.service.ConteudoEmailService;
+import com.notificacao.notificador.service.EnvioLoteService;
+import com.notificacao.notificador.service.EstatisticasEmailService;
+import com.notificacao.notificador.service.EventosEmailService;
+import com.notificacao.notificador.service.ExportacaoEmailService;
+import com.notificacao.notificador.service.OutboxService;
+import com.notificacao.notificador.service.RetencaoEmailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/admin/emails")
 @PreAuthorize("hasRole('ADMIN')")
 public class EmailAdminController {
 
+    // só e-mails que já terminaram podem ser reenviados; os demais ainda estão na fila ou no relay
+    private static final List<String> REENVIAVEIS = List.of("SUCESSO", "SUCESSO_FALLBACK", "FALHA");
+
     private final EmailLogRepository emailLogRepo;
-    private final NotificacaoEmailService notifService;
+    private final EmailTentativaRepository tentativaRepo;
+    private final OutboxService outbox;
+    private final TransactionTemplate transacao;
+    private final LoteEnvioRepository loteRepo;
+    private final EnvioLoteService envioLoteService;
+    private final ExportacaoEmailService exportacaoService;
+    private final EventosEmailService eventos;
+    private final EstatisticasEmailService estatisticas;
+    private final RetencaoEmailService retencao;
+    private final ConteudoEmailService conteudo;
 
     public EmailAdminController(EmailLogRepository emailLogRepo,
-                                NotificacaoEmailService notifService) {
+                                EmailTentativaRepository tentativaRepo,
+                                OutboxService outbox,
+                                TransactionTemplate transacao,
+                                LoteEnvioRepository loteRepo,
+                                EnvioLoteService envioLoteService,
+                                ExportacaoEmailService exportacaoService,
+                                EventosEmailService eventos,
+                                EstatisticasEmailService estatisticas,
+                                RetencaoEmailService retencao,
+                                ConteudoEmailService conteudo) {
         this.emailLogRepo = emailLogRepo;
-        this.notifService = notifService;
+        this.tentativaRepo = tentativaRepo;
+        this.outbox = outbox;
+        this.transacao = transacao;
+        this.loteRepo = loteRepo;
+        this.envioLoteService = envioLoteService;
+        this.exportacaoService = exportacaoService;
+        this.eventos = eventos;
+        this.estatisticas = estatisticas;
+        this.retencao = retencao;
+        this.conteudo = conteudo;
     }
 
+    private static final int LIMITE_MAXIMO = 200;
+
+    /**
+     * Listagem paginada (criados mais recentemente primeiro). O cursor devolvido em {@code proximoCursor}
+     * aponta para a última linha da página, então a consulta não precisa de OFFSET.
+     * {@code destinatario} filtra pelo início do endereço.
+     */
     @GetMapping("/todos")
-    public List<EmailLog> listarTodos() {
-        return emailLogRepo.findAllOrderByDataEnvio();
+    public PaginaDTO<EmailLogResumoDTO> listarTodos(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String destinatario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        Long aposId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                // cursores antigos vinham como "enviadoEm|id"; só o id importa
+                aposId = Long.parseLong(valor.substring(valor.lastIndexOf('|') + 1));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+            }
+        }
+
+        // busca uma linha a mais só para saber se existe próxima página
+        List<EmailLogResumoDTO> itens = emailLogRepo.buscarResumos(
+                vazioComoNulo(status),
+                vazioComoNulo(destinatario),
+                de != null ? de.atStartOfDay() : null,
+                ate != null ? ate.plusDays(1).atStartOfDay() : null,
+                aposId, tamanho + 1);
+
+        String proximoCursor = null;
+        if (itens.size() > tamanho) {
+            itens = itens.subList(0, tamanho);
+            EmailLogResumoDTO ultimo = itens.get(tamanho - 1);
+            proximoCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    String.valueOf(ultimo.id()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new PaginaDTO<>(itens, proximoCursor);
+    }
+
+    /**
+     * Exporta o histórico em CSV ou NDJSON sem montar a lista em memória. Limitado a poucas
+     * exportações simultâneas, já que cada uma ocupa uma conexão do banco até terminar.
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(defaultValue = "false") boolean incluirCorpo,
+            HttpServletRequest request) {
+        ExportacaoEmailService.Formato f;
+        try {
+            f = ExportacaoEmailService.Formato.valueOf(formato.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido: " + formato);
+        }
+
+        ExportacaoEmailService.Exportacao exportacao;
+        try {
+            exportacao = exportacaoService.exportar(f, vazioComoNulo(status),
+                    de != null ? de.atStartOfDay() : null,
+                    ate != null ? ate.plusDays(1).atStartOfDay() : null,
+                    incluirCorpo);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+        // o corpo roda em outra thread e pode nunca começar (timeout, executor recusou):
+        // a vaga volta também quando a requisição assíncrona termina, de qualquer jeito
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor("exportacao",
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> tarefa) {
+                        exportacao.liberar();
+                    }
+                });
+
+        boolean csv = f == ExportacaoEmailService.Formato.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"emails." + (csv ? "csv" : "ndjson") + "\"")
+                .body(exportacao.corpo());
+    }
+
+    /**
+     * Mudanças de status em tempo real (SSE, evento {@code email} com o mesmo formato da listagem).
+     * Ao reconectar, o cabeçalho {@code Last-Event-ID} retoma de onde parou; {@code recarregar}
+     * indica que o painel deve buscar a listagem de novo.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String ultimoId) {
+        try {
+            // id de outra instância, de antes de um restart ou inválido: o assinante recebe recarregar
+            return eventos.assinar(ultimoId != null && !ultimoId.isBlank() ? ultimoId.trim() : null);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+    }
+
+    /**
+     * Contagens de transições por status e domínio, lidas dos contadores pré-agregados
+     * (não percorre {@code email_log}). Padrão: última hora, por minuto.
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> estatisticas(
+            @RequestParam(defaultValue = "minuto") String granularidade,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String dominio) {
+        EstatisticasEmailService.Granularidade g;
+        try {
+            g = EstatisticasEmailService.Granularidade.valueOf(granularidade.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Granularidade inválida: " + granularidade);
+        }
+        LocalDateTime fim = ate != null ? ate : LocalDateTime.now().plusMinutes(1);
+        LocalDateTime inicio = de != null ? de : fim.minusHours(1);
+        if (!inicio.isBefore(fim)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Intervalo inválido");
+        }
+        return estatisticas.consultar(g, inicio, fim, vazioComoNulo(status),
+                dominio != null && !dominio.isBlank() ? dominio.trim().toLowerCase(Locale.ROOT) : null);
+    }
+
+    // corpo e erro ficam fora da listagem; o painel busca quando abre o detalhe
+    @GetMapping("/{id}/corpo")
+    public Map<String, String> conteudo(@PathVariable Long id) {
+        Map<String, String> resposta = new HashMap<>();
+        EmailLog log = emailLogRepo.findById(id).orElse(null);
+        if (log != null) {
+            // renderizado a partir da referência (template + variáveis ou hash do corpo)
+            resposta.put("corpo", conteudo.renderizar(ConteudoEmail.de(log)));
+            resposta.put("erro", log.getErro());
+            return resposta;
+        }
+        // já saiu da tabela quente
+        EmailLogArquivadoDTO arquivado = retencao.buscarArquivado(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        resposta.put("corpo", arquivado.corpo());
+        resposta.put("erro", arquivado.erro());
+        return resposta;
+    }
+
+    @GetMapping("/arquivo/{id}")
+    public EmailLogArquivadoDTO arquivado(@PathVariable Long id) {
+        return retencao.buscarArquivado(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @PostMapping("/reenvio/{id}")
     public ResponseEntity<?> reenviar(@PathVariable Long id) {
         EmailLog log = emailLogRepo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (!REENVIAVEIS.contains(log.getStatus())) {
+            return naoReenviavel(log.getStatus());
+        }
 
         try {
-            notifService.enviarComLog(log.getDestinatario(), log.getAssunto(), log.getCorpo());
+            // o novo e-mail aponta para o mesmo conteúdo (mesma versão do template, mesmas variáveis)
+            // e é renderizado de novo no envio; logs antigos, com o HTML inline, passam a usar o hash
+            ConteudoEmail referencia = ConteudoEmail.de(log);
+            if (referencia.legado()) {
+                referencia = conteudo.deCorpo(referencia.corpo());
+            }
+            ConteudoEmail reenvio = referencia;
 
+            // o reenvio vira um novo e-mail no outbox, gravado junto com a marcação do original;
+            // as novas tentativas acontecem sobre o log criado pelo relay. A marcação é condicional:
+            // de dois reenvios simultâneos, só o que mudar o status registra o e-mail
+            LocalDateTime agora = LocalDateTime.now();
+            String chave = transacao.execute(status -> {
+                if (emailLogRepo.marcarReenviado(id, REENVIAVEIS, agora) == 0) {
+                    return null;
+                }
+                return outbox.registrar(log.getDestinatario(), log.getAssunto(), reenvio,
+                        Prioridade.ou(log.getPrioridade()));
+            });
+            if (chave == null) {
+                return naoReenviavel(emailLogRepo.findById(id).map(EmailLog::getStatus).orElse(null));
+            }
+            // a marcação já está gravada; o log em memória só acompanha para o evento e as estatísticas
             log.setStatus("REENVIADO");
-            log.setEnviadoEm(LocalDateTime.now());
-            emailLogRepo.save(log);
+            log.setEnviadoEm(agora);
+            eventos.publicar(log);
+            estatisticas.registrar(log);
 
-            return ResponseEntity.ok("Reenvio realizado com sucesso");
+            return ResponseEntity.accepted().body(Map.of("chave", chave, "mensagem", "Reenvio agendado com sucesso"));
         } catch (Exception e) {
-            log.setStatus("FALHA");
-            log.setErro("Falha no reenvio: " + e.getMessage());
-            log.setEnviadoEm(LocalDateTime.now());
-            emailLogRepo.save(log);
-
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Erro ao reenviar: " + e.getMessage());
         }
     }
 
+    private static ResponseEntity<?> naoReenviavel(String status) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("E-mail com status " + status + " não pode ser reenviado.");
+    }
+
+    @GetMapping("/{id}/tentativas")
+    public List<EmailTentativa> listarTentativas(@PathVariable Long id) {
+        return tentativaRepo.findByEmailLogIdOrderByNumero(id);
+    }
+
+    @PostMapping("/lote")
+    public ResponseEntity<?> enviarLote(@RequestBody @Valid LoteEnvioDTO dto) {
+        try {
+            LoteEnvio lote = envioLoteService.enviarEmSegundoPlano(dto.template(), dto.assunto(), dto.destinatarios());
+            return ResponseEntity.accepted().body(Map.of("id", lote.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Variante em streaming: um destinatário JSON por linha, lido sem carregar a lista inteira em memória;
+    // cada linha é validada como no JSON e a gravação segue em segundo plano
+    @PostMapping(value = "/lote", consumes = "application/x-ndjson")
+    public ResponseEntity<?> enviarLoteStream(@RequestParam String template,
+                                              @RequestParam String assunto,
+                                              InputStream corpo) throws IOException {
+        try {
+            LoteEnvio lote = envioLoteService.enviarEmSegundoPlano(template, assunto, corpo);
+            return ResponseEntity.accepted().body(Map.of("id", lote.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/lote/{id}")
+    public Map<String, Object> progressoLote(@PathVariable Long id) {
+        LoteEnvio lote = loteRepo.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return envioLoteService.progresso(lote);
+    }
+
+    private static String vazioComoNulo(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
     @PostMapping("/testar-falha")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> criarLogFalhaTeste() {
         EmailLog log = new EmailLog();
         log.setDestinatario("teste@exemplo.com");
         log.setAssunto("Teste falha");
-        log.setCorpo("Este é um teste de falha");
+        conteudo.deCorpo("Este é um teste de falha").aplicar(log);
         log.setStatus("FALHA");
         log.setEnviadoEm(LocalDateTime.now());
         emailLogRepo.save(log);
+        eventos.publicar(log);
+        estatisticas.registrar(log);
         return ResponseEntity.ok("Log de falha criado.");
     }
 
@@ -0,0 +1,66 @@
+package com.notificacao.notificador.controller;
+
+import com.notificacao.notificador.config.PooledJavaMailSender;
+import com.notificacao.notificador.config.SmtpTransportPool;
+import com.notificacao.notificador.service.CircuitBreakerService;
+import com.notificacao.notificador.service.EmailLogWriter;
+import com.notificacao.notificador.service.LimiteDominioService;
+import com.notificacao.notificador.service.UsuarioCacheService;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/metricas")
+@PreAuthorize("hasRole('ADMIN')")
+public class MetricasController {
+
+    private final PooledJavaMailSender mailSender;
+    private final CircuitBreakerService circuitBreaker;
+    private final LimiteDominioService limites;
+    private final EmailLogWriter logWriter;
+    private final UsuarioCacheService usuarioCache;
+
+    public MetricasController(PooledJavaMailSender mailSender,
+                              CircuitBreakerService circuitBreaker,
+                              LimiteDominioService limites,
+                              EmailLogWriter logWriter,
+                              UsuarioCacheService usuarioCache) {
+        this.mailSender = mailSender;
+        this.circuitBreaker = circuitBreaker;
+        this.limites = limites;
+        this.logWriter = logWriter;
+        this.usuarioCache = usuarioCache;
+    }
+
+    @GetMapping("/smtp")
+    public SmtpTransportPool.Metricas smtp() {
+        return mailSender.getPool().metricas();
+    }
+
+    @GetMapping("/circuito")
+    public Map<String, Object> circuito() {
+        return Map.of(
+                "estado", circuitBreaker.estado(),
+                "transicoes", circuitBreaker.ultimasTransicoes());
+    }
+
+    @GetMapping("/log-writer")
+    public EmailLogWriter.Metricas logWriter() {
+        return logWriter.metricas();
+    }
+
+    @GetMapping("/dominios")
+    public Map<String, Object> dominios() {
+        return Map.of(
+                "monitorados", limites.dominiosMonitorados(),
+                "comProblema", limites.dominiosComProblema());
+    }
+
+    @GetMapping("/cache-usuarios")
+    public Map<String, Object> cacheUsuarios() {
+        return usuarioCache.metricas();
+    }
+}
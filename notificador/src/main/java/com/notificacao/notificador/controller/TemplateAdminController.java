@@ -0,0 +1,39 @@
+package com.notificacao.notificador.controller;
+
+import com.notificacao.notificador.model.EmailTemplate;
+import com.notificacao.notificador.service.EmailTemplateService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/templates")
+@PreAuthorize("hasRole('ADMIN')")
+public class TemplateAdminController {
+
+    private final EmailTemplateService templateService;
+
+    public TemplateAdminController(EmailTemplateService templateService) {
+        this.templateService = templateService;
+    }
+
+    // Corpo é o HTML do template, com variáveis no formato {{nome}}
+    @PutMapping(value = "/{nome}", consumes = {"text/html", "text/plain"})
+    public ResponseEntity<?> salvar(@PathVariable String nome,
+                                    @RequestParam(required = false) String locale,
+                                    @RequestBody String conteudo) {
+        try {
+            EmailTemplate salvo = templateService.salvar(nome,
+                    locale != null ? Locale.forLanguageTag(locale) : null, conteudo);
+            return ResponseEntity.ok(Map.of(
+                    "nome", salvo.getNome(),
+                    "locale", salvo.getLocale(),
+                    "versao", salvo.getVersao()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.notificacao.notificador.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import java.util.Map;
+
+public record DestinatarioLoteDTO(
+    @NotBlank(message = "E-mail obrigadorio")
+    @Email(message = "E-mail inválido")
+    String email,
+
+    Map<String, String> variaveis,
+
+    // opcional, ex.: "en" ou "pt-BR"; sem locale usa o template padrão
+    String locale
+) {}
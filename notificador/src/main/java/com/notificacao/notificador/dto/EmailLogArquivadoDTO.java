@@ -0,0 +1,17 @@
+package com.notificacao.notificador.dto;
+
+import java.time.LocalDateTime;
+
+// EmailLog já movido para o arquivo, com o corpo descomprimido
+public record EmailLogArquivadoDTO(
+    Long id,
+    String destinatario,
+    String assunto,
+    String corpo,
+    LocalDateTime enviadoEm,
+    String status,
+    String erro,
+    Integer tentativas,
+    Long loteId,
+    LocalDateTime arquivadoEm
+) {}
@@ -0,0 +1,13 @@
+package com.notificacao.notificador.dto;
+
+import java.time.LocalDateTime;
+
+// Item da listagem de e-mails: sem corpo e erro, que são buscados por linha
+public record EmailLogResumoDTO(
+    Long id,
+    String destinatario,
+    String assunto,
+    LocalDateTime enviadoEm,
+    String status,
+    Integer tentativas
+) {}
@@ -0,0 +1,11 @@
+package com.notificacao.notificador.dto;
+
+import java.time.LocalDateTime;
+
+// Um bucket da série de estatísticas: transições para o status no intervalo que começa em inicio
+public record EstatisticaDTO(
+    LocalDateTime inicio,
+    String status,
+    String dominio,
+    long total
+) {}
@@ -0,0 +1,17 @@
+package com.notificacao.notificador.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public record LoteEnvioDTO(
+    @NotBlank(message = "Template obrigatorio")
+    String template,
+
+    @NotBlank(message = "Assunto obrigatorio")
+    String assunto,
+
+    @NotEmpty(message = "Informe ao menos um destinatario")
+    List<@Valid DestinatarioLoteDTO> destinatarios
+) {}
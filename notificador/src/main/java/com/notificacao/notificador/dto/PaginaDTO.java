@@ -0,0 +1,9 @@
+package com.notificacao.notificador.dto;
+
+import java.util.List;
+
+// proximoCursor é null na última página
+public record PaginaDTO<T>(
+    List<T> itens,
+    String proximoCursor
+) {}
@@ -0,0 +1,35 @@
+package com.notificacao.notificador.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * Conteúdo endereçado pelo hash: fonte de template ou corpo HTML avulso, gravado uma única vez
+ * (gzip) e referenciado por {@link EmailLog}, {@link OutboxEmail} e {@link EmailLogArquivo}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_corpo", indexes = {
+        @Index(name = "idx_email_corpo_usado", columnList = "usado_em")
+})
+public class EmailCorpo {
+    // SHA-256 do conteúdo em hexadecimal
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Lob
+    @Column(name = "conteudo_gzip", nullable = false)
+    private byte[] conteudoGzip;
+
+    // tamanho original em caracteres
+    private Integer tamanho;
+
+    // renovado quando volta a ser referenciado (no máximo a cada 10 min por instância);
+    // a retenção só apaga o que está sem referência e sem uso há dias
+    @Column(name = "usado_em")
+    private LocalDateTime usadoEm;
+}
@@ -0,0 +1,37 @@
+package com.notificacao.notificador.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * Contagem de transições para um status num intervalo (minuto ou hora), por domínio do destinatário.
+ * Alimentada pelo {@code EstatisticasEmailService}, que soma os contadores em memória às linhas
+ * existentes (MERGE); as consultas de estatística leem só esta tabela, nunca {@code email_log}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_estatistica", uniqueConstraints =
+        @UniqueConstraint(name = "uk_email_estatistica", columnNames = {"granularidade", "inicio", "status", "dominio"}))
+public class EmailEstatistica {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // M = minuto, H = hora
+    @Column(nullable = false, length = 1)
+    private String granularidade;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(nullable = false, length = 30)
+    private String status;
+
+    @Column(nullable = false)
+    private String dominio;
+
+    @Column(nullable = false)
+    private Long total;
+}
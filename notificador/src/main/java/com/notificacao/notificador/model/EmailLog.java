@@ -8,18 +8,73 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_email_log_enviado_id", columnList = "enviado_em DESC, id DESC"),
+        @Index(name = "idx_email_log_status_enviado", columnList = "status, enviado_em DESC"),
+        // keyset da listagem por id, com filtro de status ou destinatário
+        @Index(name = "idx_email_log_status_id", columnList = "status, id DESC"),
+        @Index(name = "idx_email_log_destinatario_id", columnList = "destinatario, id DESC"),
+        @Index(name = "idx_email_log_lote", columnList = "lote_id"),
+        @Index(name = "idx_email_log_status_proxima", columnList = "status, proxima_tentativa_em"),
+        @Index(name = "idx_email_log_template_hash", columnList = "template_hash"),
+        @Index(name = "idx_email_log_corpo_hash", columnList = "corpo_hash")
+})
 public class EmailLog {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // sequence (e não IDENTITY) para o Hibernate conseguir agrupar os INSERTs em batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_log_seq")
+    @SequenceGenerator(name = "email_log_seq", sequenceName = "email_log_seq", allocationSize = 50)
     private Long id;
 
     private String destinatario;
     private String assunto;
+
+    // conteúdo por referência (ver ConteudoEmail): template + variáveis ou hash de um corpo
+    // avulso, ambos em email_corpo; o HTML é renderizado na hora do envio
+    @Column(length = 100)
+    private String template;
+    @Column(name = "template_versao")
+    private Long templateVersao;
+    @Column(name = "template_locale", length = 35)
+    private String templateLocale;
+    @Column(name = "template_hash", length = 64)
+    private String templateHash;
+    // variáveis do template em JSON
+    @Column(columnDefinition = "TEXT")
+    private String variaveis;
+    @Column(name = "corpo_hash", length = 64)
+    private String corpoHash;
+    // HTML completo, só em logs gravados antes das referências
     @Column(columnDefinition = "TEXT")
     private String corpo;
 
+    @Column(name = "enviado_em")
     private LocalDateTime enviadoEm;
     private String status;
     @Column(columnDefinition = "TEXT")
     private String erro;
 
+    // quantidade de tentativas já realizadas e quando a próxima deve ocorrer (status RETRY)
+    private Integer tentativas;
+    private LocalDateTime proximaTentativaEm;
+
+    // fila do dispatcher em que o envio entra; nula em logs antigos (tratada como TRANSACIONAL)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Prioridade prioridade;
+
+    // preenchido quando o e-mail faz parte de um envio em lote
+    @Column(name = "lote_id")
+    private Long loteId;
+
+    // e-mails vindos do outbox (ver OutboxEmail); nulo nos demais
+    @Column(name = "chave_idempotencia", unique = true, length = 100)
+    private String chaveIdempotencia;
+
+    // instância que detém o envio PENDENTE/RETRY e até quando (ver LeaseEnvioService)
+    @Column(length = 100)
+    private String dono;
+    @Column(name = "lease_ate")
+    private LocalDateTime leaseAte;
+
 }
@@ -0,0 +1,59 @@
+package com.notificacao.notificador.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * {@link EmailLog} já concluído movido para fora da tabela quente pelo {@code RetencaoEmailService}.
+ * Mantém o mesmo id e a referência de conteúdo; o corpo dos logs antigos fica comprimido (gzip).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_log_arquivo", indexes = {
+        @Index(name = "idx_email_log_arquivo_status_enviado", columnList = "status, enviado_em"),
+        @Index(name = "idx_email_log_arquivo_template_hash", columnList = "template_hash"),
+        @Index(name = "idx_email_log_arquivo_corpo_hash", columnList = "corpo_hash")
+})
+public class EmailLogArquivo {
+    @Id
+    private Long id;
+
+    private String destinatario;
+    private String assunto;
+
+    // referência de conteúdo copiada do EmailLog (ver ConteudoEmail)
+    @Column(length = 100)
+    private String template;
+    @Column(name = "template_versao")
+    private Long templateVersao;
+    @Column(name = "template_locale", length = 35)
+    private String templateLocale;
+    @Column(name = "template_hash", length = 64)
+    private String templateHash;
+    @Column(columnDefinition = "TEXT")
+    private String variaveis;
+    @Column(name = "corpo_hash", length = 64)
+    private String corpoHash;
+    // só para logs antigos, que ainda tinham o HTML completo
+    @Lob
+    @Column(name = "corpo_gzip")
+    private byte[] corpoGzip;
+
+    @Column(name = "enviado_em")
+    private LocalDateTime enviadoEm;
+    private String status;
+    @Column(columnDefinition = "TEXT")
+    private String erro;
+    private Integer tentativas;
+
+    @Column(name = "lote_id")
+    private Long loteId;
+    @Column(name = "chave_idempotencia", length = 100)
+    private String chaveIdempotencia;
+
+    @Column(name = "arquivado_em")
+    private LocalDateTime arquivadoEm;
+}
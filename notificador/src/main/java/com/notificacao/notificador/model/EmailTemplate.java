@@ -0,0 +1,33 @@
+package com.notificacao.notificador.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * Template cadastrado pelo admin. Tem precedência sobre o arquivo de mesmo nome em
+ * {@code templates/email/} no classpath.
+ */
+@Getter
+@Setter
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_email_template_nome_locale", columnNames = {"nome", "locale"}))
+public class EmailTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String nome;
+    // tag BCP 47 (ex.: "en", "pt-BR"); vazio para o template padrão
+    private String locale;
+
+    @Column(columnDefinition = "TEXT")
+    private String conteudo;
+
+    // incrementada a cada alteração; indica qual versão está compilada em cache
+    @Version
+    private Long versao;
+
+    private LocalDateTime atualizadoEm;
+}
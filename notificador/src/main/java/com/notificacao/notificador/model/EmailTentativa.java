@@ -0,0 +1,32 @@
+package com.notificacao.notificador.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * Histórico de cada tentativa de envio de um {@link EmailLog}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(indexes = @Index(name = "idx_email_tentativa_log", columnList = "email_log_id"))
+public class EmailTentativa {
+    // inserido via JDBC pelo EmailLogWriter com NEXT VALUE FOR email_tentativa_seq
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_tentativa_seq")
+    @SequenceGenerator(name = "email_tentativa_seq", sequenceName = "email_tentativa_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "email_log_id", nullable = false)
+    private Long emailLogId;
+
+    private int numero;
+    private String status;
+    @Column(columnDefinition = "TEXT")
+    private String erro;
+
+    private LocalDateTime iniciadaEm;
+    private long duracaoMs;
+}
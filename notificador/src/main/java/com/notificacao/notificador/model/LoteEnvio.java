@@ -0,0 +1,29 @@
+package com.notificacao.notificador.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * Job de envio em lote. O progresso é calculado a partir dos {@link EmailLog} com este lote.
+ */
+@Getter
+@Setter
+@Entity
+public class LoteEnvio {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String template;
+    private String assunto;
+
+    // RECEBENDO enquanto os destinatários são gravados, depois ENFILEIRADO (ou ERRO)
+    private String status;
+    // destinatários gravados; durante RECEBENDO cresce a cada chunk
+    private long total;
+
+    private LocalDateTime criadoEm;
+    @Column(columnDefinition = "TEXT")
+    private String erro;
+}
@@ -0,0 +1,49 @@
+package com.notificacao.notificador.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+/**
+ * E-mail a enviar, gravado na mesma transação da operação que o originou. O relay
+ * ({@code OutboxService}) transforma cada linha num {@link EmailLog} PENDENTE e a apaga.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_email")
+public class OutboxEmail {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // repetida no EmailLog; impede que um repasse refeito após falha gere um segundo envio
+    @Column(name = "chave_idempotencia", nullable = false, unique = true, length = 100)
+    private String chaveIdempotencia;
+
+    private String destinatario;
+    private String assunto;
+
+    // mesma referência de conteúdo do EmailLog (ver ConteudoEmail)
+    @Column(length = 100)
+    private String template;
+    @Column(name = "template_versao")
+    private Long templateVersao;
+    @Column(name = "template_locale", length = 35)
+    private String templateLocale;
+    @Column(name = "template_hash", length = 64)
+    private String templateHash;
+    @Column(columnDefinition = "TEXT")
+    private String variaveis;
+    @Column(name = "corpo_hash", length = 64)
+    private String corpoHash;
+    @Column(columnDefinition = "TEXT")
+    private String corpo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Prioridade prioridade;
+
+    @Column(name = "criado_em")
+    private LocalDateTime criadoEm;
+}
@@ -8,16 +8,20 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "idx_reset_token_expiracao", columnList = "expiration"))
 public class PasswordResetToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String token;
+    // SHA-256 (hex) do token enviado por e-mail; o token em si não é gravado
+    @Column(name = "token_hash", length = 64, unique = true)
+    private String tokenHash;
 
+    // no máximo um token por usuário: um novo pedido substitui o anterior
     @OneToOne
+    @JoinColumn(name = "usuario_id", unique = true)
     private Usuario usuario;
 
     private LocalDateTime expiration;
 }
-
@@ -0,0 +1,16 @@
+package com.notificacao.notificador.model;
+
+/**
+ * Classe de prioridade de um e-mail; cada uma tem a própria fila no {@code EmailDispatcher}.
+ * Ex.: redefinição de senha é CRITICA, envio em lote é EM_MASSA.
+ */
+public enum Prioridade {
+    CRITICA,
+    TRANSACIONAL,
+    EM_MASSA;
+
+    // linhas gravadas antes das prioridades não têm a coluna preenchida
+    public static Prioridade ou(Prioridade prioridade) {
+        return prioridade != null ? prioridade : TRANSACIONAL;
+    }
+}
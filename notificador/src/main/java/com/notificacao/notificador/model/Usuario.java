@@ -2,6 +2,7 @@ package com.notificacao.notificador.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.util.Locale;
 import java.util.Set;
 import java.util.HashSet;
 
@@ -18,6 +19,7 @@ public class Usuario {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // sempre normalizado (ver normalizarEmail), para a busca usar o índice único com igualdade
     @Column(nullable = false, unique = true)
     private String email;
 
@@ -28,4 +30,14 @@ public class Usuario {
     @CollectionTable(name ="usuario_roles", joinColumns = @JoinColumn(name = "usuario_id"))
     @Column(name = "role")
     private Set<String> roles = new HashSet<>();
+
+    @PrePersist
+    @PreUpdate
+    void normalizar() {
+        email = normalizarEmail(email);
+    }
+
+    public static String normalizarEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,7 @@
+package com.notificacao.notificador.repository;
+
+import com.notificacao.notificador.model.EmailLogArquivo;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EmailLogArquivoRepository extends JpaRepository<EmailLogArquivo, Long> {
+}
@@ -2,13 +2,31 @@ package com.notificacao.notificador.repository;
 
 import com.notificacao.notificador.model.EmailLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface EmailLogRepository extends JpaRepository<EmailLog, Long> {
+public interface EmailLogRepository extends JpaRepository<EmailLog, Long>, EmailLogRepositoryCustom {
     List<EmailLog> findByStatus(String status);
 
-    @Query("SELECT e FROM EmailLog e ORDER BY e.enviadoEm DESC")
-    List<EmailLog> findAllOrderByDataEnvio();
+    @Query("SELECT e.status, COUNT(e) FROM EmailLog e WHERE e.loteId = :loteId GROUP BY e.status")
+    List<Object[]> contarPorStatusDoLote(@Param("loteId") Long loteId);
+
+    @Query("SELECT e.chaveIdempotencia FROM EmailLog e WHERE e.chaveIdempotencia IN :chaves")
+    List<String> findChavesIdempotenciaExistentes(@Param("chaves") Collection<String> chaves);
+
+    // só o status e a data, e só se o e-mail ainda estiver num dos status esperados:
+    // retorna 0 se outra requisição ou um worker mudou o status antes
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE EmailLog e SET e.status = 'REENVIADO', e.enviadoEm = :agora " +
+            "WHERE e.id = :id AND e.status IN :esperados")
+    int marcarReenviado(@Param("id") Long id,
+                        @Param("esperados") Collection<String> esperados,
+                        @Param("agora") LocalDateTime agora);
 }
@@ -0,0 +1,19 @@
+package com.notificacao.notificador.repository;
+
+import com.notificacao.notificador.dto.EmailLogResumoDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailLogRepositoryCustom {
+
+    /**
+     * Listagem paginada por keyset no id decrescente (ordem de criação). Filtros nulos são
+     * ignorados; {@code aposId} é a última linha da página anterior. O cursor não usa
+     * {@code enviadoEm}: ele é regravado a cada mudança de status, e uma linha atualizada entre
+     * duas páginas pularia para trás do cursor (sumiria) ou apareceria duas vezes.
+     */
+    List<EmailLogResumoDTO> buscarResumos(String status, String destinatario,
+                                          LocalDateTime de, LocalDateTime ate,
+                                          Long aposId, int limite);
+}
@@ -0,0 +1,57 @@
+package com.notificacao.notificador.repository;
+
+import com.notificacao.notificador.dto.EmailLogResumoDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Consulta montada só com os filtros informados, para o banco usar os índices de EmailLog
+class EmailLogRepositoryImpl implements EmailLogRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<EmailLogResumoDTO> buscarResumos(String status, String destinatario,
+                                                 LocalDateTime de, LocalDateTime ate,
+                                                 Long aposId, int limite) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.notificacao.notificador.dto.EmailLogResumoDTO(" +
+                "e.id, e.destinatario, e.assunto, e.enviadoEm, e.status, e.tentativas) " +
+                "FROM EmailLog e WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (status != null) {
+            jpql.append(" AND e.status = :status");
+            params.put("status", status);
+        }
+        if (destinatario != null) {
+            // busca pelo início do endereço: o LIKE sem curinga no começo ainda usa o índice
+            jpql.append(" AND e.destinatario LIKE :destinatario ESCAPE '\\'");
+            params.put("destinatario", destinatario.replace("\\", "\\\\")
+                    .replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        if (de != null) {
+            jpql.append(" AND e.enviadoEm >= :de");
+            params.put("de", de);
+        }
+        if (ate != null) {
+            jpql.append(" AND e.enviadoEm < :ate");
+            params.put("ate", ate);
+        }
+        if (aposId != null) {
+            jpql.append(" AND e.id < :aposId");
+            params.put("aposId", aposId);
+        }
+        jpql.append(" ORDER BY e.id DESC");
+
+        TypedQuery<EmailLogResumoDTO> query = em.createQuery(jpql.toString(), EmailLogResumoDTO.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limite).getResultList();
+    }
+}
@@ -0,0 +1,10 @@
+package com.notificacao.notificador.repository;
+
+import com.notificacao.notificador.model.EmailTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface EmailTemplateRepository extends JpaRepository<EmailTemplate, Long> {
+    Optional<EmailTemplate> findByNomeAndLocale(String nome, String locale);
+}
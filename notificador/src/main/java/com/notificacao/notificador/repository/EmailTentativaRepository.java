@@ -0,0 +1,10 @@
+package com.notificacao.notificador.repository;
+
+import com.notificacao.notificador.model.EmailTentativa;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface EmailTentativaRepository extends JpaRepository<EmailTentativa, Long> {
+    List<EmailTentativa> findByEmailLogIdOrderByNumero(Long emailLogId);
+}
@@ -0,0 +1,16 @@
+package com.notificacao.notificador.repository;
+
+import com.notificacao.notificador.model.LoteEnvio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface LoteEnvioRepository extends JpaRepository<LoteEnvio, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE LoteEnvio l SET l.total = :total WHERE l.id = :id")
+    int atualizarTotal(@Param("id") Long id, @Param("total") long total);
+}
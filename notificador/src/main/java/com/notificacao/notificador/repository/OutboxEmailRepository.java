@@ -0,0 +1,7 @@
+package com.notificacao.notificador.repository;
+
+import com.notificacao.notificador.model.OutboxEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+}
@@ -1,12 +1,48 @@
 package com.notificacao.notificador.repository;
 
 import com.notificacao.notificador.model.PasswordResetToken;
-import com.notificacao.notificador.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
-    Optional<PasswordResetToken> findByToken(String token);
-    Optional<PasswordResetToken> findByUsuario(Usuario usuario);
+
+    @Query("SELECT t.usuario.id AS usuarioId, t.expiration AS expiracao FROM PasswordResetToken t " +
+            "WHERE t.tokenHash = :hash")
+    Optional<TokenPendente> findByTokenHash(@Param("hash") String hash);
+
+    // um único comando substitui o buscar-apagar-inserir por usuário
+    @Modifying
+    @Transactional
+    @Query(value = "MERGE INTO password_reset_token t " +
+            "USING (VALUES (CAST(:usuarioId AS BIGINT), CAST(:hash AS VARCHAR(64)), CAST(:expiracao AS TIMESTAMP))) " +
+            "AS s(usuario_id, token_hash, expiration) ON t.usuario_id = s.usuario_id " +
+            "WHEN MATCHED THEN UPDATE SET token_hash = s.token_hash, expiration = s.expiration " +
+            "WHEN NOT MATCHED THEN INSERT (usuario_id, token_hash, expiration) " +
+            "VALUES (s.usuario_id, s.token_hash, s.expiration)", nativeQuery = true)
+    void upsert(@Param("usuarioId") Long usuarioId,
+                @Param("hash") String hash,
+                @Param("expiracao") LocalDateTime expiracao);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PasswordResetToken t WHERE t.tokenHash = :hash")
+    int deleteByTokenHash(@Param("hash") String hash);
+
+    // apaga no máximo :lote linhas por chamada, para não segurar locks numa tabela grande
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM password_reset_token WHERE id IN " +
+            "(SELECT id FROM password_reset_token WHERE expiration < :agora LIMIT :lote)", nativeQuery = true)
+    int deleteExpirados(@Param("agora") LocalDateTime agora, @Param("lote") int lote);
+
+    interface TokenPendente {
+        Long getUsuarioId();
+        LocalDateTime getExpiracao();
+    }
 }
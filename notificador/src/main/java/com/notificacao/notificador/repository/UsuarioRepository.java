@@ -2,9 +2,20 @@ package com.notificacao.notificador.repository;
 
 import com.notificacao.notificador.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+    // o e-mail é gravado normalizado: passe Usuario.normalizarEmail(email)
     Optional<Usuario> findByEmail(String email);
+
+    // cadastros anteriores à normalização; quem colidiria com um e-mail já normalizado fica como está
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE usuarios u SET email = LOWER(TRIM(u.email)) WHERE u.email <> LOWER(TRIM(u.email)) " +
+            "AND NOT EXISTS (SELECT 1 FROM usuarios o WHERE o.email = LOWER(TRIM(u.email)))", nativeQuery = true)
+    int normalizarEmails();
 }
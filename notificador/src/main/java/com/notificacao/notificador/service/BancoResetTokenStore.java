@@ -0,0 +1,46 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.repository.PasswordResetTokenRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "notificador.reset-token.armazenamento", havingValue = "banco", matchIfMissing = true)
+public class BancoResetTokenStore implements ResetTokenStore {
+
+    private final PasswordResetTokenRepository repo;
+
+    public BancoResetTokenStore(PasswordResetTokenRepository repo) {
+        this.repo = repo;
+    }
+
+    @Override
+    public void salvar(Long usuarioId, String hash, LocalDateTime expiracao) {
+        repo.upsert(usuarioId, hash, expiracao);
+    }
+
+    @Override
+    public Optional<TokenReset> buscar(String hash) {
+        return repo.findByTokenHash(hash).map(t -> new TokenReset(t.getUsuarioId(), t.getExpiracao()));
+    }
+
+    // quem apagar a linha fica com o token; uma requisição concorrente que leu a mesma linha
+    // apaga zero e recebe vazio
+    @Override
+    public Optional<TokenReset> consumir(String hash) {
+        return buscar(hash).filter(token -> repo.deleteByTokenHash(hash) == 1);
+    }
+
+    @Override
+    public void remover(String hash) {
+        repo.deleteByTokenHash(hash);
+    }
+
+    @Override
+    public int removerExpirados(LocalDateTime agora, int lote) {
+        return repo.deleteExpirados(agora, lote);
+    }
+}
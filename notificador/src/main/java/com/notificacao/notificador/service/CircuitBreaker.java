@@ -0,0 +1,185 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.CircuitBreakerProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker sem locks. O estado atual é um objeto imutável trocado via CAS; a janela
+ * deslizante de resultados é um buffer circular de {@code long} (timestamp + bit de falha),
+ * então várias threads registram resultados ao mesmo tempo sem disputar um monitor.
+ */
+public class CircuitBreaker {
+
+    public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+    public record Transicao(String nome, Estado de, Estado para, long instanteMs) {}
+
+    private final String nome;
+    private final CircuitBreakerProperties props;
+    private final Consumer<Transicao> ouvinte;
+    private final AtomicReference<Situacao> situacao;
+
+    public CircuitBreaker(String nome, CircuitBreakerProperties props, Consumer<Transicao> ouvinte) {
+        this.nome = nome;
+        this.props = props;
+        this.ouvinte = ouvinte;
+        this.situacao = new AtomicReference<>(Situacao.fechado(props));
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public Estado getEstado() {
+        return situacao.get().estado;
+    }
+
+    /**
+     * Milissegundos até o circuito aberto liberar chamadas de teste (0 se não estiver aberto).
+     */
+    public long tempoRestanteAbertoMs() {
+        Situacao s = situacao.get();
+        if (s.estado != Estado.ABERTO) {
+            return 0;
+        }
+        return Math.max(0, s.desdeMs + props.getTempoAbertoMs() - System.currentTimeMillis());
+    }
+
+    public boolean podeTentarEnvio() {
+        while (true) {
+            Situacao s = situacao.get();
+            switch (s.estado) {
+                case FECHADO:
+                    return true;
+                case MEIO_ABERTO:
+                    if (s.permissoes.getAndUpdate(p -> p > 0 ? p - 1 : p) > 0) {
+                        return true;
+                    }
+                    // chamadas de teste que nunca reportaram resultado: libera uma nova rodada
+                    if (System.currentTimeMillis() - s.desdeMs < props.getTempoAbertoMs()) {
+                        return false;
+                    }
+                    transicionar(s, Situacao.meioAberto(props));
+                    break;
+                case ABERTO:
+                    if (System.currentTimeMillis() - s.desdeMs < props.getTempoAbertoMs()) {
+                        return false;
+                    }
+                    // tempo de espera acabou: tenta passar para MEIO_ABERTO e disputa uma permissão
+                    transicionar(s, Situacao.meioAberto(props));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Devolve a permissão de teste obtida em {@link #podeTentarEnvio()} quando a chamada acabou
+     * não acontecendo (ex.: outro limite recusou o envio). Fora de MEIO_ABERTO não faz nada.
+     */
+    public void devolverPermissao() {
+        Situacao s = situacao.get();
+        if (s.estado == Estado.MEIO_ABERTO) {
+            s.permissoes.getAndUpdate(p -> Math.min(p + 1, props.getChamadasMeioAberto()));
+        }
+    }
+
+    public void registrarSucesso() {
+        Situacao s = situacao.get();
+        switch (s.estado) {
+            case FECHADO -> s.janela.registrar(false);
+            case MEIO_ABERTO -> {
+                if (s.sucessos.incrementAndGet() >= props.getChamadasMeioAberto()) {
+                    transicionar(s, Situacao.fechado(props));
+                }
+            }
+            case ABERTO -> { }
+        }
+    }
+
+    public void registrarFalha() {
+        Situacao s = situacao.get();
+        switch (s.estado) {
+            case FECHADO -> {
+                s.janela.registrar(true);
+                if (s.janela.deveAbrir(props)) {
+                    transicionar(s, Situacao.aberto());
+                }
+            }
+            // qualquer falha durante o teste reabre o circuito
+            case MEIO_ABERTO -> transicionar(s, Situacao.aberto());
+            case ABERTO -> { }
+        }
+    }
+
+    private void transicionar(Situacao atual, Situacao nova) {
+        if (situacao.compareAndSet(atual, nova) && ouvinte != null && atual.estado != nova.estado) {
+            ouvinte.accept(new Transicao(nome, atual.estado, nova.estado, nova.desdeMs));
+        }
+    }
+
+    private static final class Situacao {
+        final Estado estado;
+        final long desdeMs = System.currentTimeMillis();
+        final Janela janela;
+        final AtomicInteger permissoes;
+        final AtomicInteger sucessos;
+
+        private Situacao(Estado estado, Janela janela, int permissoes) {
+            this.estado = estado;
+            this.janela = janela;
+            this.permissoes = new AtomicInteger(permissoes);
+            this.sucessos = new AtomicInteger();
+        }
+
+        static Situacao fechado(CircuitBreakerProperties props) {
+            return new Situacao(Estado.FECHADO, new Janela(props.getTamanhoJanela()), 0);
+        }
+
+        static Situacao aberto() {
+            return new Situacao(Estado.ABERTO, null, 0);
+        }
+
+        static Situacao meioAberto(CircuitBreakerProperties props) {
+            return new Situacao(Estado.MEIO_ABERTO, null, props.getChamadasMeioAberto());
+        }
+    }
+
+    /**
+     * Buffer circular com os últimos resultados. Cada posição guarda {@code (timestampMs << 1) | falha};
+     * 0 indica posição ainda vazia.
+     */
+    static final class Janela {
+        private final AtomicLongArray resultados;
+        private final AtomicLong cursor = new AtomicLong();
+
+        Janela(int tamanho) {
+            this.resultados = new AtomicLongArray(Math.max(1, tamanho));
+        }
+
+        void registrar(boolean falha) {
+            int i = (int) (cursor.getAndIncrement() % resultados.length());
+            resultados.set(i, (System.currentTimeMillis() << 1) | (falha ? 1 : 0));
+        }
+
+        // só é avaliado quando há falha, então a varredura não pesa no caminho de sucesso
+        boolean deveAbrir(CircuitBreakerProperties props) {
+            long limite = System.currentTimeMillis() - props.getJanelaMs();
+            int chamadas = 0;
+            int falhas = 0;
+            for (int i = 0; i < resultados.length(); i++) {
+                long r = resultados.get(i);
+                if (r != 0 && (r >>> 1) >= limite) {
+                    chamadas++;
+                    falhas += (int) (r & 1);
+                }
+            }
+            return chamadas >= props.getMinimoChamadas()
+                    && falhas * 100 >= props.getTaxaFalhaPercentual() * chamadas;
+        }
+    }
+}
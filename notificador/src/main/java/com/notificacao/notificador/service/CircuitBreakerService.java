@@ -1,42 +1,77 @@
 package com.notificacao.notificador.service;
 
+import com.notificacao.notificador.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Circuit breaker do relay SMTP: só conta falhas de conexão/servidor, não recusas de destinatário
+ * (essas ficam no circuito do domínio, ver {@link LimiteDominioService}). As transições de estado são publicadas como
+ * eventos da aplicação ({@link CircuitBreaker.Transicao}) e contadas em
+ * {@code notificador.circuito.transicoes}; o estado atual fica no gauge {@code notificador.circuito.estado}
+ * (0 = FECHADO, 1 = ABERTO, 2 = MEIO_ABERTO).
+ */
 @Service
 public class CircuitBreakerService {
 
-    private int falhasRecentes = 0;
-    private long ultimaFalha = 0;
-    private boolean circuitoAberto = false;
-    private final int limiteFalhas = 3;
-    private final long tempoEsperaMs = 10 * 60 * 1000; // 10 minutos
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerService.class);
+    private static final int MAX_HISTORICO = 50;
 
-    public synchronized boolean podeTentarEnvio() {
-        if (circuitoAberto && System.currentTimeMillis() - ultimaFalha < tempoEsperaMs) {
-            return false;
-        }
+    private final CircuitBreaker circuito;
+    private final Deque<CircuitBreaker.Transicao> historico = new ConcurrentLinkedDeque<>();
 
-        if (circuitoAberto && System.currentTimeMillis() - ultimaFalha >= tempoEsperaMs) {
-            circuitoAberto = false;
-            falhasRecentes = 0;
-        }
+    public CircuitBreakerService(CircuitBreakerProperties props, ApplicationEventPublisher publisher,
+                                 MeterRegistry metricas) {
+        this.circuito = new CircuitBreaker("smtp", props, transicao -> {
+            logger.warn("Circuit breaker do relay: {} -> {}", transicao.de(), transicao.para());
+            metricas.counter("notificador.circuito.transicoes",
+                    "circuito", "smtp", "para", transicao.para().name()).increment();
+            historico.addFirst(transicao);
+            while (historico.size() > MAX_HISTORICO) {
+                historico.pollLast();
+            }
+            publisher.publishEvent(transicao);
+        });
+        Gauge.builder("notificador.circuito.estado", circuito, c -> c.getEstado().ordinal())
+                .description("Estado do circuit breaker do relay SMTP")
+                .tag("circuito", "smtp")
+                .register(metricas);
+    }
 
-        return true;
+    public boolean podeTentarEnvio() {
+        return circuito.podeTentarEnvio();
     }
 
-    public synchronized void registrarFalha() {
-        falhasRecentes++;
-        ultimaFalha = System.currentTimeMillis();
+    public void devolverPermissao() {
+        circuito.devolverPermissao();
+    }
 
-        if (falhasRecentes >= limiteFalhas) {
-            circuitoAberto = true;
-            System.out.println("⚠️ Circuit breaker ativado. Novos envios estão bloqueados temporariamente.");
-        }
+    public void registrarFalha() {
+        circuito.registrarFalha();
     }
 
-    public synchronized void registrarSucesso() {
-        falhasRecentes = 0;
-        circuitoAberto = false;
+    public void registrarSucesso() {
+        circuito.registrarSucesso();
+    }
+
+    public long tempoRestanteAbertoMs() {
+        return circuito.tempoRestanteAbertoMs();
+    }
+
+    public CircuitBreaker.Estado estado() {
+        return circuito.getEstado();
     }
-}
 
+    public List<CircuitBreaker.Transicao> ultimasTransicoes() {
+        return new ArrayList<>(historico);
+    }
+}
@@ -0,0 +1,43 @@
+package com.notificacao.notificador.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip do corpo HTML dos e-mails guardados fora da tabela quente. HTML de template repete
+ * muito markup e costuma encolher bem mais que a metade.
+ */
+public final class CompressaoCorpo {
+
+    private CompressaoCorpo() {
+    }
+
+    public static byte[] comprimir(String corpo) {
+        if (corpo == null) {
+            return null;
+        }
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(64, corpo.length() / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(corpo.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+
+    public static String descomprimir(byte[] comprimido) {
+        if (comprimido == null) {
+            return null;
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(comprimido))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.model.EmailLog;
+import com.notificacao.notificador.model.EmailLogArquivo;
+import com.notificacao.notificador.model.OutboxEmail;
+
+/**
+ * Referência ao conteúdo de um e-mail, no lugar do HTML renderizado. Uma de três formas:
+ * <ul>
+ *   <li>template: nome, versão e locale (informativos), {@code templateHash} da fonte exata em
+ *       {@code email_corpo} e as variáveis em JSON;</li>
+ *   <li>corpo avulso: {@code corpoHash} do HTML em {@code email_corpo};</li>
+ *   <li>{@code corpo} com o HTML completo, só em linhas gravadas antes das referências.</li>
+ * </ul>
+ * Criada e renderizada pelo {@link ConteudoEmailService}.
+ */
+public record ConteudoEmail(String template, Long templateVersao, String templateLocale, String templateHash,
+                           String variaveis, String corpoHash, String corpo) {
+
+    public static ConteudoEmail de(EmailLog log) {
+        return new ConteudoEmail(log.getTemplate(), log.getTemplateVersao(), log.getTemplateLocale(),
+                log.getTemplateHash(), log.getVariaveis(), log.getCorpoHash(), log.getCorpo());
+    }
+
+    public static ConteudoEmail de(OutboxEmail email) {
+        return new ConteudoEmail(email.getTemplate(), email.getTemplateVersao(), email.getTemplateLocale(),
+                email.getTemplateHash(), email.getVariaveis(), email.getCorpoHash(), email.getCorpo());
+    }
+
+    public static ConteudoEmail de(EmailLogArquivo arquivo) {
+        return new ConteudoEmail(arquivo.getTemplate(), arquivo.getTemplateVersao(), arquivo.getTemplateLocale(),
+                arquivo.getTemplateHash(), arquivo.getVariaveis(), arquivo.getCorpoHash(),
+                CompressaoCorpo.descomprimir(arquivo.getCorpoGzip()));
+    }
+
+    public boolean legado() {
+        return templateHash == null && corpoHash == null;
+    }
+
+    public void aplicar(EmailLog log) {
+        log.setTemplate(template);
+        log.setTemplateVersao(templateVersao);
+        log.setTemplateLocale(templateLocale);
+        log.setTemplateHash(templateHash);
+        log.setVariaveis(variaveis);
+        log.setCorpoHash(corpoHash);
+        log.setCorpo(corpo);
+    }
+
+    public void aplicar(OutboxEmail email) {
+        email.setTemplate(template);
+        email.setTemplateVersao(templateVersao);
+        email.setTemplateLocale(templateLocale);
+        email.setTemplateHash(templateHash);
+        email.setVariaveis(variaveis);
+        email.setCorpoHash(corpoHash);
+        email.setCorpo(corpo);
+    }
+}
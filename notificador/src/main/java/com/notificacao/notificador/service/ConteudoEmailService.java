@@ -0,0 +1,223 @@
+package com.notificacao.notificador.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Guarda o conteúdo dos e-mails por referência em vez do HTML renderizado em cada linha.
+ * Fontes de template e corpos avulsos vão uma única vez para {@code email_corpo}, endereçados
+ * pelo SHA-256 e comprimidos; o log guarda só o hash (mais as variáveis, no caso de template).
+ * O HTML é montado de novo quando precisa: no envio, no detalhe do painel, na exportação.
+ * <p>
+ * Como o hash é da fonte exata, alterar o template não muda o que um log antigo renderiza.
+ */
+@Service
+public class ConteudoEmailService {
+
+    private static final String RENOVAR =
+            "UPDATE email_corpo SET usado_em = ? WHERE hash = ?";
+
+    private static final String INSERIR =
+            "INSERT INTO email_corpo (hash, conteudo_gzip, tamanho, usado_em) VALUES (?, ?, ?, ?)";
+
+    private static final TypeReference<Map<String, String>> MAPA = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbc;
+    private final EmailTemplateService templateService;
+    private final ObjectMapper objectMapper;
+    // participa da transação de quem chama, se houver: uma transação própria (REQUIRES_NEW)
+    // tomaria uma segunda conexão do pool enquanto a primeira espera, e sob concorrência o pool
+    // esgota com todas as threads esperando por ele mesmo
+    private final TransactionTemplate transacao;
+
+    // hashes gravados/renovados há pouco por esta instância; evita um UPDATE por e-mail.
+    // A retenção só apaga conteúdo sem uso há dias, bem mais que esta validade
+    private final Cache<String, Boolean> gravados = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+    // fontes compiladas por hash, inclusive versões antigas de templates já alterados
+    private final Cache<String, TemplateCompilado> compilados = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+    private final Cache<String, String> corpos = Caffeine.newBuilder()
+            .maximumWeight(4_000_000)
+            .weigher((String hash, String corpo) -> corpo.length())
+            .build();
+
+    public ConteudoEmailService(JdbcTemplate jdbc,
+                                EmailTemplateService templateService,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.templateService = templateService;
+        this.objectMapper = objectMapper;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Referência à versão atual do template (mesma resolução de locale do
+     * {@link EmailTemplateService}) com as variáveis deste e-mail.
+     * <p>
+     * Pode gravar a fonte em {@code email_corpo}; quem vai registrar o e-mail numa transação
+     * deve resolver a referência antes dela e só trocar as variáveis lá dentro, com
+     * {@link #comVariaveis}.
+     *
+     * @throws IllegalArgumentException se o template não existe
+     */
+    public ConteudoEmail deTemplate(String template, Locale locale, Map<String, String> variaveis) {
+        TemplateCompilado compilado = templateService.compilado(template, locale)
+                .orElseThrow(() -> new IllegalArgumentException("Template desconhecido: " + template));
+        garantir(compilado.getHash(), compilado.getFonte());
+        compilados.put(compilado.getHash(), compilado);
+        return comVariaveis(new ConteudoEmail(compilado.getNome(), compilado.getVersao(), compilado.getLocale(),
+                compilado.getHash(), null, null, null), variaveis);
+    }
+
+    /**
+     * A mesma referência de template com outras variáveis. Não acessa o banco.
+     */
+    public ConteudoEmail comVariaveis(ConteudoEmail modelo, Map<String, String> variaveis) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(variaveis != null ? variaveis : Map.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Variáveis inválidas para o template " + modelo.template(), e);
+        }
+        return new ConteudoEmail(modelo.template(), modelo.templateVersao(), modelo.templateLocale(),
+                modelo.templateHash(), json, null, null);
+    }
+
+    /**
+     * Referência a um corpo HTML qualquer; corpos iguais são gravados uma vez só.
+     */
+    public ConteudoEmail deCorpo(String corpo) {
+        String texto = corpo != null ? corpo : "";
+        String hash = hash(texto);
+        garantir(hash, texto);
+        corpos.put(hash, texto);
+        return new ConteudoEmail(null, null, null, null, null, hash, null);
+    }
+
+    /**
+     * Monta o HTML a partir da referência. Logs antigos devolvem o corpo que já guardavam.
+     *
+     * @throws IllegalStateException se o conteúdo referenciado não está mais em {@code email_corpo}
+     */
+    public String renderizar(ConteudoEmail conteudo) {
+        return renderizar(conteudo, null);
+    }
+
+    /**
+     * Como {@link #renderizar(ConteudoEmail)}, passando antes cada variável do template por
+     * {@code variavel}: valores que só existem no envio, sem ficar gravados no log.
+     */
+    public String renderizar(ConteudoEmail conteudo, UnaryOperator<String> variavel) {
+        if (conteudo.templateHash() != null) {
+            TemplateCompilado compilado = compilados.get(conteudo.templateHash(), hash ->
+                    TemplateCompilado.compilar(conteudo.template(),
+                            conteudo.templateLocale() != null ? conteudo.templateLocale() : "",
+                            conteudo.templateVersao() != null ? conteudo.templateVersao() : 0,
+                            carregar(hash)));
+            Map<String, String> variaveis = variaveis(conteudo.variaveis());
+            if (variavel != null) {
+                variaveis = new HashMap<>(variaveis);
+                variaveis.replaceAll((nome, valor) -> variavel.apply(valor));
+            }
+            return compilado.render(variaveis);
+        }
+        if (conteudo.corpoHash() != null) {
+            return corpos.get(conteudo.corpoHash(), this::carregar);
+        }
+        return conteudo.corpo();
+    }
+
+    private Map<String, String> variaveis(String json) {
+        if (json == null || json.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, MAPA);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Variáveis de template corrompidas", e);
+        }
+    }
+
+    private String carregar(String hash) {
+        List<byte[]> conteudo = jdbc.query("SELECT conteudo_gzip FROM email_corpo WHERE hash = ?",
+                (rs, i) -> rs.getBytes(1), hash);
+        if (conteudo.isEmpty()) {
+            throw new IllegalStateException("Conteúdo " + hash + " não encontrado");
+        }
+        return CompressaoCorpo.descomprimir(conteudo.get(0));
+    }
+
+    // grava se ainda não existe; se existe, só renova usado_em para a retenção não apagar
+    private void garantir(String hash, String conteudo) {
+        if (gravados.getIfPresent(hash) != null) {
+            return;
+        }
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        transacao.executeWithoutResult(status -> {
+            if (jdbc.update(RENOVAR, agora, hash) > 0) {
+                return;
+            }
+            try {
+                jdbc.update(INSERIR, hash, CompressaoCorpo.comprimir(conteudo), conteudo.length(), agora);
+            } catch (DataIntegrityViolationException e) {
+                // outra thread/instância gravou o mesmo conteúdo ao mesmo tempo
+            }
+        });
+        lembrarGravado(hash);
+    }
+
+    // dentro da transação de quem chama, o conteúdo só existe para os outros depois do commit;
+    // se ela for desfeita, o hash continua desconhecido e o próximo e-mail grava de novo
+    private void lembrarGravado(String hash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            gravados.put(hash, Boolean.TRUE);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                gravados.put(hash, Boolean.TRUE);
+            }
+        });
+    }
+
+    /**
+     * SHA-256 do texto (UTF-8) em hexadecimal: a chave de {@code email_corpo}.
+     */
+    public static String hash(String texto) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
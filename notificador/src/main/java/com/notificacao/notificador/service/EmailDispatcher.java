@@ -0,0 +1,294 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.ClusterProperties;
+import com.notificacao.notificador.config.EnvioProperties;
+import com.notificacao.notificador.model.Prioridade;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fila de envio assíncrona. Recebe ids de logs PENDENTE já gravados (pelo {@link OutboxService}
+ * ou pelo envio em lote); um pool limitado de workers faz o envio SMTP fora da thread da requisição.
+ * <p>
+ * Cada {@link Prioridade} tem a própria fila ({@link FilasEnvio}): os workers as consomem por
+ * escalonamento justo ponderado ({@code notificador.envio.peso-*}) e {@code workers-reservados}
+ * deles nunca pegam EM_MASSA, então uma campanha grande não atrasa o link de redefinição de senha.
+ * Profundidade e tempo de espera são medidos por fila.
+ * <p>
+ * Novas tentativas são agendadas num {@link ScheduledThreadPoolExecutor} de uma única thread
+ * (heap ordenado por horário): enquanto esperam, os retries ocupam apenas memória.
+ * <p>
+ * Várias instâncias podem dividir o mesmo banco: antes de enviar, o worker toma o lease do log
+ * ({@link LeaseEnvioService}); a instância renova os leases de tudo que tem na fila, em envio ou
+ * agendado, e uma varredura periódica reivindica os pendentes sem dono ou com lease vencido
+ * (inclusive os deixados por uma execução anterior ou por outra instância que caiu).
+ * <p>
+ * Com {@code spring.threads.virtual.enabled} (Java 21+, perfil {@code virtual}) os workers
+ * são virtual threads: o bloqueio em SMTP e no banco não segura uma thread de plataforma.
+ */
+@Service
+public class EmailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private final NotificacaoEmailService notificacaoEmailService;
+    private final LeaseEnvioService leases;
+    private final ClusterProperties clusterProperties;
+    private final FilasEnvio filas;
+    private final ExecutorService workers;
+    private final AtomicInteger ativos = new AtomicInteger();
+    private final Map<Prioridade, Timer> espera = new EnumMap<>(Prioridade.class);
+    private final ScheduledThreadPoolExecutor agendador;
+    private final ScheduledExecutorService varredura;
+
+    // ids na fila, em envio ou com nova tentativa agendada nesta instância; evita processar o mesmo
+    // log duas vezes ao mesmo tempo e define quais leases a instância renova
+    private final Set<Long> conhecidos = ConcurrentHashMap.newKeySet();
+    // ids cujo lease acabou de ser tomado pela varredura: o worker não precisa tomá-lo de novo
+    private final Set<Long> reivindicados = ConcurrentHashMap.newKeySet();
+
+    private final Counter leasesRecusados;
+    private final Counter leasesReivindicados;
+
+    public EmailDispatcher(NotificacaoEmailService notificacaoEmailService,
+                           LeaseEnvioService leases,
+                           EnvioProperties envioProperties,
+                           ClusterProperties clusterProperties,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais,
+                           MeterRegistry metricas) {
+        this.notificacaoEmailService = notificacaoEmailService;
+        this.leases = leases;
+        this.clusterProperties = clusterProperties;
+
+        this.filas = new FilasEnvio(envioProperties.getPesoCritica(), envioProperties.getPesoTransacional(),
+                envioProperties.getPesoEmMassa());
+
+        int n = Math.max(1, envioProperties.getWorkers());
+        AtomicInteger seq = new AtomicInteger();
+        // n workers fixos limitam a concorrência; só o tipo de thread muda
+        ThreadFactory fabrica = threadsVirtuais
+                ? new VirtualThreadTaskExecutor("envio-email-").getVirtualThreadFactory()
+                : r -> {
+                    Thread t = new Thread(r, "envio-email-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                };
+        this.workers = Executors.newFixedThreadPool(n, fabrica);
+        // pelo menos um worker sempre pode pegar EM_MASSA
+        int reservados = Math.max(0, Math.min(envioProperties.getWorkersReservados(), n - 1));
+        for (int i = 0; i < n; i++) {
+            boolean reservado = i < reservados;
+            workers.execute(() -> consumir(reservado));
+        }
+
+        this.agendador = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "retry-email");
+            t.setDaemon(true);
+            return t;
+        });
+        this.agendador.setRemoveOnCancelPolicy(true);
+
+        this.varredura = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lease-email");
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (Prioridade prioridade : Prioridade.values()) {
+            Gauge.builder("notificador.envio.fila", filas, f -> f.tamanho(prioridade))
+                    .description("Envios aguardando um worker")
+                    .tag("prioridade", prioridade.name())
+                    .register(metricas);
+            espera.put(prioridade, Timer.builder("notificador.envio.espera")
+                    .description("Tempo entre entrar na fila e ser pego por um worker")
+                    .tag("prioridade", prioridade.name())
+                    .publishPercentileHistogram()
+                    .register(metricas));
+        }
+        Gauge.builder("notificador.envio.ativos", ativos, AtomicInteger::get)
+                .register(metricas);
+        Gauge.builder("notificador.envio.retries_agendados", agendador, a -> a.getQueue().size())
+                .description("Novas tentativas aguardando o horário")
+                .register(metricas);
+        this.leasesRecusados = Counter.builder("notificador.envio.lease_recusado")
+                .description("Envios ignorados porque outra instância detém o lease")
+                .register(metricas);
+        this.leasesReivindicados = metricas.counter("notificador.envio.lease_reivindicado");
+    }
+
+    public void submeter(Long logId, Prioridade prioridade) {
+        if (conhecidos.add(logId)) {
+            executar(logId, prioridade);
+        }
+    }
+
+    /**
+     * Agenda uma nova tentativa sem bloquear nenhuma thread durante a espera.
+     */
+    public void agendar(Long logId, Prioridade prioridade, long atrasoMs) {
+        if (conhecidos.add(logId)) {
+            reexecutar(logId, prioridade, atrasoMs);
+        }
+    }
+
+    private void reexecutar(Long logId, Prioridade prioridade, long atrasoMs) {
+        agendador.schedule(() -> executar(logId, prioridade), atrasoMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void executar(Long logId, Prioridade prioridade) {
+        if (!filas.adicionar(logId, prioridade)) {
+            // encerrando: o log continua PENDENTE/RETRY no banco
+            conhecidos.remove(logId);
+        }
+    }
+
+    private void consumir(boolean reservado) {
+        while (true) {
+            FilasEnvio.Item item;
+            try {
+                item = filas.proximo(reservado);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (item == null) {
+                return;
+            }
+            espera.get(item.prioridade()).record(System.nanoTime() - item.enfileiradoNs(), TimeUnit.NANOSECONDS);
+            ativos.incrementAndGet();
+            try {
+                processar(item.logId(), item.prioridade());
+            } finally {
+                ativos.decrementAndGet();
+            }
+        }
+    }
+
+    private void processar(Long logId, Prioridade prioridade) {
+        boolean reagendado = false;
+        CompletableFuture<Boolean> gravado = null;
+        try {
+            if (!reivindicados.remove(logId) && !leases.reivindicar(logId)) {
+                // outra instância está com o envio (ou ele já foi concluído)
+                leasesRecusados.increment();
+                return;
+            }
+            NotificacaoEmailService.Resultado resultado = notificacaoEmailService.processar(logId);
+            gravado = resultado.gravado();
+            if (resultado.reagendar()) {
+                reexecutar(logId, prioridade, resultado.reagendarEmMs());
+                reagendado = true;
+            }
+        } catch (Exception e) {
+            // o log continua PENDENTE/RETRY; a varredura o reivindica quando o lease vencer
+            logger.error("Erro ao processar envio {}", logId, e);
+        } finally {
+            if (!reagendado) {
+                esquecerAposGravar(logId, gravado);
+            }
+        }
+    }
+
+    // O status final fica no buffer do EmailLogWriter por até um flush. Até ele chegar ao banco,
+    // o id continua conhecido e o lease continua renovado: senão o lease vence com a linha ainda
+    // PENDENTE/RETRY e outra instância envia o e-mail de novo. Se o flush falhar, o writer tenta
+    // de novo e o lease segue renovado
+    private void esquecerAposGravar(Long logId, CompletableFuture<Boolean> gravado) {
+        if (gravado == null) {
+            conhecidos.remove(logId);
+        } else {
+            gravado.whenComplete((ok, erro) -> conhecidos.remove(logId));
+        }
+    }
+
+    public int tamanhoFila() {
+        return filas.tamanho();
+    }
+
+    public int tamanhoFila(Prioridade prioridade) {
+        return filas.tamanho(prioridade);
+    }
+
+    public int retriesAgendados() {
+        return agendador.getQueue().size();
+    }
+
+    // Inicia a varredura de pendentes (que também recupera os de uma execução anterior) e a renovação
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarVarredura() {
+        long renovacaoMs = Math.max(1, clusterProperties.getLeaseMs() / 3);
+        varredura.scheduleWithFixedDelay(this::reivindicarSeguro,
+                0, clusterProperties.getVarreduraMs(), TimeUnit.MILLISECONDS);
+        varredura.scheduleWithFixedDelay(this::renovarSeguro,
+                renovacaoMs, renovacaoMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void reivindicarSeguro() {
+        try {
+            reivindicarPendentes();
+        } catch (Exception e) {
+            logger.error("Erro ao reivindicar envios pendentes", e);
+        }
+    }
+
+    /**
+     * Reivindica os pendentes já devidos que ninguém detém, até o espaço livre na fila.
+     */
+    public void reivindicarPendentes() {
+        int espaco = clusterProperties.getLoteReivindicacao() - filas.tamanho();
+        List<LeaseEnvioService.Disponivel> disponiveis = leases.reivindicarDisponiveis(espaco);
+        if (disponiveis.isEmpty()) {
+            return;
+        }
+        logger.debug("Reivindicados {} envio(s) pendente(s)", disponiveis.size());
+        leasesReivindicados.increment(disponiveis.size());
+        for (LeaseEnvioService.Disponivel d : disponiveis) {
+            if (conhecidos.add(d.id())) {
+                reivindicados.add(d.id());
+                executar(d.id(), d.prioridade());
+            }
+        }
+    }
+
+    private void renovarSeguro() {
+        try {
+            leases.renovar(conhecidos);
+        } catch (Exception e) {
+            logger.error("Erro ao renovar leases de envio", e);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        // retries agendados já estão persistidos como RETRY; quando o lease vencer,
+        // esta ou outra instância os reivindica
+        varredura.shutdownNow();
+        agendador.shutdownNow();
+        filas.fechar();
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,296 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.LogWriterProperties;
+import com.notificacao.notificador.model.EmailLog;
+import com.notificacao.notificador.model.EmailTentativa;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Gravação write-behind das mudanças de status do {@link EmailLog} e do histórico de tentativas.
+ * As transições vão para um buffer em memória e são gravadas em batch JDBC por tamanho ou tempo;
+ * várias transições do mesmo log entre dois flushes viram um único UPDATE.
+ * <p>
+ * Atraso de gravação: {@code notificador.log_writer.atraso} (tempo desde o último flush com itens
+ * pendentes), {@code notificador.log_writer.buffer} e a duração de cada flush.
+ * <p>
+ * O UPDATE só vale enquanto esta instância é a dona do lease do log: se o lease venceu e outra
+ * instância reivindicou o envio, a gravação atrasada não sobrescreve o status dela
+ * ({@code notificador.log_writer.descartadas}).
+ * <p>
+ * Se um flush falha, os itens vão para uma lista de reprocessamento (até a capacidade do buffer)
+ * e voltam no flush seguinte, antes dos novos; nada é descartado. Com ela cheia, o buffer deixa
+ * de ser esvaziado e quem enfileira recebe o erro do banco.
+ */
+@Component
+public class EmailLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailLogWriter.class);
+
+    private static final String UPDATE_LOG =
+            "UPDATE email_log SET status = ?, erro = ?, tentativas = ?, proxima_tentativa_em = ?, enviado_em = ?, " +
+            "assunto = COALESCE(?, assunto) WHERE id = ? AND dono = ?";
+
+    private static final String INSERT_TENTATIVA =
+            "INSERT INTO email_tentativa (id, email_log_id, numero, status, erro, iniciada_em, duracao_ms) " +
+            "VALUES (NEXT VALUE FOR email_tentativa_seq, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final LogWriterProperties props;
+    private final String no;
+    private final BlockingQueue<Object> buffer;
+    // itens de flushes que falharam; só acessada com o lock {@code gravando}
+    private final List<Object> reprocessar = new ArrayList<>();
+    private volatile int emReprocessamento;
+    // último estado ainda não gravado de cada log, para quem ler do banco antes do flush
+    private final Map<Long, Atualizacao> pendentes = new ConcurrentHashMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final ReentrantLock gravando = new ReentrantLock();
+    private final AtomicBoolean flushAgendado = new AtomicBoolean();
+    private final ScheduledExecutorService agendador;
+    private final Timer duracaoFlush;
+    private final Counter descartadas;
+
+    private final LongAdder transicoes = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder linhasGravadas = new LongAdder();
+    private volatile long ultimoFlushMs = System.currentTimeMillis();
+
+    public EmailLogWriter(JdbcTemplate jdbc, LogWriterProperties props, LeaseEnvioService leases,
+                          MeterRegistry metricas) {
+        this.jdbc = jdbc;
+        this.props = props;
+        this.no = leases.getNo();
+        this.buffer = new LinkedBlockingQueue<>(Math.max(1, props.getCapacidadeBuffer()));
+        this.duracaoFlush = Timer.builder("notificador.log_writer.flush")
+                .description("Duração de cada batch gravado")
+                .register(metricas);
+        this.descartadas = Counter.builder("notificador.log_writer.descartadas")
+                .description("Atualizações não gravadas porque o lease do log passou para outra instância")
+                .register(metricas);
+        Gauge.builder("notificador.log_writer.buffer", this, EmailLogWriter::naoGravados)
+                .description("Itens no buffer ou aguardando nova tentativa de gravação")
+                .register(metricas);
+        TimeGauge.builder("notificador.log_writer.atraso", this, TimeUnit.MILLISECONDS, EmailLogWriter::atrasoMs)
+                .description("Tempo desde o último flush enquanto há itens no buffer")
+                .register(metricas);
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "email-log-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.agendador.scheduleWithFixedDelay(this::flushSeguro,
+                props.getIntervaloMs(), props.getIntervaloMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra o estado atual do log. {@code assuntoAlterado} indica que o assunto também mudou;
+     * o corpo não é regravado, ele é só uma referência (ver {@link ConteudoEmail}).
+     *
+     * @return completa depois do commit do flush que gravou este estado (ou um mais novo do mesmo
+     *         log); {@code false} se o lease já era de outra instância e nada foi gravado
+     */
+    public CompletableFuture<Boolean> atualizar(EmailLog log, boolean assuntoAlterado) {
+        Atualizacao a = new Atualizacao(sequencia.incrementAndGet(), log.getId(), log.getStatus(), log.getErro(),
+                log.getTentativas(), log.getProximaTentativaEm(), log.getEnviadoEm(),
+                assuntoAlterado ? log.getAssunto() : null, new CompletableFuture<>());
+        Atualizacao anterior = pendentes.put(a.id(), a);
+        try {
+            enfileirar(a);
+        } catch (RuntimeException e) {
+            // não entrou no buffer: quem chamou recebe o erro e o estado anterior volta a valer
+            if (anterior != null) {
+                pendentes.replace(a.id(), a, anterior);
+            } else {
+                pendentes.remove(a.id(), a);
+            }
+            throw e;
+        }
+        return a.gravada();
+    }
+
+    public void registrarTentativa(EmailTentativa tentativa) {
+        enfileirar(tentativa);
+    }
+
+    /**
+     * Lê o log com {@code busca} e aplica o estado que ainda está no buffer. O estado pendente é
+     * lido antes do banco: se um flush terminar no meio, ou ele já está no banco quando a linha
+     * é lida, ou ainda foi visto aqui; lido depois, a linha podia vir antes do commit e o estado
+     * pendente já ter saído do mapa.
+     */
+    public Optional<EmailLog> buscar(Long logId, Function<Long, Optional<EmailLog>> busca) {
+        Atualizacao a = pendentes.get(logId);
+        return busca.apply(logId).map(log -> aplicar(log, a));
+    }
+
+    private static EmailLog aplicar(EmailLog log, Atualizacao a) {
+        if (a != null) {
+            log.setStatus(a.status());
+            log.setErro(a.erro());
+            log.setTentativas(a.tentativas());
+            log.setProximaTentativaEm(a.proximaTentativaEm());
+            log.setEnviadoEm(a.enviadoEm());
+            if (a.assunto() != null) {
+                log.setAssunto(a.assunto());
+            }
+        }
+        return log;
+    }
+
+    public Metricas metricas() {
+        return new Metricas(transicoes.sum(), naoGravados(), flushes.sum(), linhasGravadas.sum(), atrasoMs());
+    }
+
+    private int naoGravados() {
+        return buffer.size() + emReprocessamento;
+    }
+
+    private long atrasoMs() {
+        return naoGravados() == 0 ? 0 : System.currentTimeMillis() - ultimoFlushMs;
+    }
+
+    private void enfileirar(Object item) {
+        transicoes.increment();
+        while (!buffer.offer(item)) {
+            // buffer cheio: aplica backpressure gravando na thread de quem chamou
+            flush();
+        }
+        if (buffer.size() >= props.getTamanhoLote() && flushAgendado.compareAndSet(false, true)) {
+            agendador.execute(() -> {
+                flushAgendado.set(false);
+                flushSeguro();
+            });
+        }
+    }
+
+    private void flushSeguro() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Erro ao gravar logs de e-mail", e);
+        }
+    }
+
+    public void flush() {
+        gravando.lock();
+        try {
+            List<Object> itens = new ArrayList<>(reprocessar.size() + buffer.size());
+            itens.addAll(reprocessar);
+            reprocessar.clear();
+            // o que falhou antes volta primeiro; o buffer só é esvaziado até a capacidade
+            buffer.drainTo(itens, Math.max(0, props.getCapacidadeBuffer() - itens.size()));
+            emReprocessamento = 0;
+            if (itens.isEmpty()) {
+                ultimoFlushMs = System.currentTimeMillis();
+                return;
+            }
+
+            Map<Long, Atualizacao> atualizacoes = new LinkedHashMap<>();
+            List<Object[]> tentativas = new ArrayList<>();
+            for (Object item : itens) {
+                if (item instanceof Atualizacao a) {
+                    atualizacoes.merge(a.id(), a, (x, y) -> x.seq() > y.seq() ? x : y);
+                } else if (item instanceof EmailTentativa t) {
+                    tentativas.add(new Object[] {
+                            t.getEmailLogId(), t.getNumero(), t.getStatus(), t.getErro(),
+                            timestamp(t.getIniciadaEm()), t.getDuracaoMs()
+                    });
+                }
+            }
+
+            long t0 = System.nanoTime();
+            Map<Long, Boolean> gravados = new HashMap<>();
+            try {
+                if (!atualizacoes.isEmpty()) {
+                    List<Object[]> linhas = new ArrayList<>(atualizacoes.size());
+                    for (Atualizacao a : atualizacoes.values()) {
+                        linhas.add(new Object[] {
+                                a.status(), a.erro(), a.tentativas(), timestamp(a.proximaTentativaEm()),
+                                timestamp(a.enviadoEm()), a.assunto(), a.id(), no
+                        });
+                    }
+                    int[] contagens = jdbc.batchUpdate(UPDATE_LOG, linhas);
+                    int i = 0;
+                    for (Atualizacao a : atualizacoes.values()) {
+                        // SUCCESS_NO_INFO (-2) conta como gravado; só 0 indica outro dono
+                        gravados.put(a.id(), contagens[i++] != 0);
+                    }
+                }
+                if (!tentativas.isEmpty()) {
+                    jdbc.batchUpdate(INSERT_TENTATIVA, tentativas);
+                }
+            } catch (RuntimeException e) {
+                // a próxima rodada tenta de novo; os estados continuam em pendentes até lá
+                reprocessar.addAll(itens);
+                emReprocessamento = reprocessar.size();
+                logger.warn("Flush de {} item(ns) falhou; serão gravados na próxima rodada", itens.size());
+                throw e;
+            }
+
+            atualizacoes.values().forEach(a -> pendentes.remove(a.id(), a));
+            for (Object item : itens) {
+                if (item instanceof Atualizacao a) {
+                    boolean gravado = gravados.get(a.id());
+                    if (!gravado && a == atualizacoes.get(a.id())) {
+                        descartadas.increment();
+                        logger.warn("Status {} do log {} não gravado: o lease é de outra instância", a.status(), a.id());
+                    }
+                    a.gravada().complete(gravado);
+                }
+            }
+            duracaoFlush.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            flushes.increment();
+            linhasGravadas.add(atualizacoes.size() + tentativas.size());
+            ultimoFlushMs = System.currentTimeMillis();
+        } finally {
+            gravando.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdown();
+        flush();
+    }
+
+    private static Timestamp timestamp(LocalDateTime data) {
+        return data == null ? null : Timestamp.valueOf(data);
+    }
+
+    private record Atualizacao(long seq, Long id, String status, String erro, Integer tentativas,
+                               LocalDateTime proximaTentativaEm, LocalDateTime enviadoEm,
+                               String assunto, CompletableFuture<Boolean> gravada) {}
+
+    public record Metricas(long transicoesRecebidas, int pendentesNoBuffer, long flushes,
+                           long linhasGravadas, long atrasoMs) {}
+}
@@ -1,6 +1,8 @@
 package com.notificacao.notificador.service;
 
 import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -8,6 +10,8 @@ import org.springframework.stereotype.Service;
 
 @Service
 public class EmailService {
+    private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
+
     private final JavaMailSender mailSender;
 
     @Value("${spring.mail.username}")
@@ -18,7 +22,7 @@ public class EmailService {
     }
 
     public void enviarEmail(String to, String subject, String text, boolean isHtml) {
-        System.out.println(">>> Tentando enviar e-mail para: " + to);
+        logger.debug("Enviando e-mail para {}", to);
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -28,10 +32,8 @@ public class EmailService {
             helper.setText(text, isHtml);
 
             mailSender.send(message);
-            System.out.println("✅ E-mail enviado com sucesso!");
         } catch (Exception e) {
-            System.out.println("Erro ao enviar e-mail:");
-            e.printStackTrace();
+            logger.error("Erro ao enviar e-mail para {}", to, e);
             throw new RuntimeException("Erro ao enviar e-mail: " + e.getMessage(), e);
         }
     }
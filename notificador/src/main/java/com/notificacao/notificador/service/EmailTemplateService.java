@@ -1,60 +1,150 @@
 package com.notificacao.notificador.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.notificacao.notificador.config.TemplateProperties;
+import com.notificacao.notificador.model.EmailTemplate;
+import com.notificacao.notificador.repository.EmailTemplateRepository;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Templates de e-mail por nome e locale. A fonte vem do banco ({@link EmailTemplate}) ou, se não
+ * houver cadastro, de {@code templates/email/<nome>[_<locale>].html} no classpath. Cada template é
+ * compilado uma vez e fica em cache até ser alterado nesta instância; alterações feitas em outra
+ * instância aparecem depois de {@code notificador.templates.revalidar-ms}.
+ */
 @Service
 public class EmailTemplateService {
 
+    private static final String PASTA = "templates/email/";
+    private static final Pattern NOME_VALIDO = Pattern.compile("[a-z0-9-]+");
+
+    private final EmailTemplateRepository templateRepo;
+    // Optional vazio guarda que o template não existe. Relido periodicamente: a versão gravada
+    // no banco pode ter mudado em outra instância, que não tem como avisar esta
+    private final LoadingCache<Chave, Optional<TemplateCompilado>> cache;
+    // avança a cada alteração do template já gravada; uma compilação que leu a versão anterior
+    // termina numa chave que ninguém mais consulta, em vez de voltar a ser servida
+    private final ConcurrentHashMap<String, AtomicLong> geracoes = new ConcurrentHashMap<>();
+
+    public EmailTemplateService(EmailTemplateRepository templateRepo, TemplateProperties props) {
+        this.templateRepo = templateRepo;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .refreshAfterWrite(Duration.ofMillis(Math.max(1, props.getRevalidarMs())))
+                .build(chave -> resolver(chave.nome(), chave.locale()));
+    }
+
+    public boolean existe(String template) {
+        return compilado(template, null).isPresent();
+    }
+
+    /**
+     * Renderiza um template pelo id, usado pelo envio em lote.
+     */
+    public String render(String template, Map<String, String> variaveis) {
+        return render(template, null, variaveis);
+    }
+
+    /**
+     * Usa a variante mais específica do locale (ex.: pt-BR, depois pt, depois a padrão).
+     */
+    public String render(String template, Locale locale, Map<String, String> variaveis) {
+        return compilado(template, locale)
+                .orElseThrow(() -> new IllegalArgumentException("Template desconhecido: " + template))
+                .render(variaveis);
+    }
+
     public String buildPasswordResetEmail(String resetLink) {
-        return """
-            <!DOCTYPE html>
-            <html lang="pt-BR">
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <title>Redefinição de Senha</title>
-                <style>
-                    body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; line-height: 1.6; color: #333; }
-                    .container { max-width: 600px; margin: 0 auto; padding: 20px; border: 1px solid #e0e0e0; border-radius: 8px; }
-                    .logo { text-align: center; margin-bottom: 20px; }
-                    .btn { display: inline-block; padding: 12px 24px; background-color: #4F46E5; color: white; text-decoration: none; border-radius: 6px; font-weight: bold; font-size: 16px; }
-                    .footer { margin-top: 30px; text-align: center; font-size: 0.8em; color: #777; }
-                    .code { background-color: #f3f4f6; padding: 10px; border-radius: 4px; font-family: monospace; }
-                    .security-note { background-color: #fef3c7; padding: 15px; border-radius: 6px; margin: 20px 0; }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <div class="logo">
-                        <h2 style="color: #4F46E5; margin-bottom: 5px;">Notificator</h2>
-                        <p style="margin-top: 0; color: #6B7280;">Sua solução inteligente</p>
-                    </div>
-                    
-                    <h2 style="color: #1F2937;">Redefinição de Senha</h2>
-                    
-                    <p>Olá,</p>
-                    
-                    <p>Recebemos uma solicitação para redefinir a senha da sua conta. Clique no botão abaixo para criar uma nova senha:</p>
-                    
-                    <p style="text-align: center; margin: 30px 0;">
-                        <a style="color: #FFF;" href="%s" class="btn">Redefinir Minha Senha</a>
-                    </p>
-                    
-                    <div class="security-note">
-                        <p><strong>Importante:</strong> Por questões de segurança, este link expirará em 15 minutos. Se você não solicitou a redefinição de senha, por favor ignore este e-mail ou entre em contato com nosso suporte.</p>
-                    </div>
-                    
-                    <p>Se tiver alguma dúvida ou precisar de ajuda, nossa equipe de suporte está à disposição.</p>
-                    
-                    <p>Atenciosamente,<br><strong>Equipe Notificator</strong></p>
-                    
-                    <div class="footer">
-                        <p>© 2023 Notificator. Todos os direitos reservados.</p>
-                        <p>Este é um e-mail automático, por favor não responda.</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-            """.formatted(resetLink, resetLink);
+        return render("redefinicao-senha", Map.of("link", resetLink));
+    }
+
+    public Optional<TemplateCompilado> compilado(String template, Locale locale) {
+        if (template == null || !NOME_VALIDO.matcher(template).matches()) {
+            return Optional.empty();
+        }
+        // só templates já alterados têm contador; nomes quaisquer vindos de fora não criam um
+        AtomicLong geracao = geracoes.get(template);
+        return cache.get(new Chave(template, geracao != null ? geracao.get() : 0, locale));
+    }
+
+    /**
+     * Cria ou altera o template no banco e descarta as versões compiladas dele.
+     */
+    public EmailTemplate salvar(String nome, Locale locale, String conteudo) {
+        if (nome == null || !NOME_VALIDO.matcher(nome).matches()) {
+            throw new IllegalArgumentException("Nome de template inválido: " + nome);
+        }
+        String tag = locale == null ? "" : locale.toLanguageTag();
+        EmailTemplate template = templateRepo.findByNomeAndLocale(nome, tag).orElseGet(() -> {
+            EmailTemplate novo = new EmailTemplate();
+            novo.setNome(nome);
+            novo.setLocale(tag);
+            return novo;
+        });
+        template.setConteudo(conteudo);
+        template.setAtualizadoEm(LocalDateTime.now());
+        EmailTemplate salvo = templateRepo.save(template);
+
+        // save() já fez o commit: só agora a nova geração é visível, e quem compilar por ela lê a
+        // versão nova. A alteração pode mudar a resolução de qualquer locale desse template
+        geracoes.computeIfAbsent(nome, n -> new AtomicLong()).incrementAndGet();
+        cache.asMap().keySet().removeIf(chave -> chave.nome().equals(nome));
+        return salvo;
+    }
+
+    private Optional<TemplateCompilado> resolver(String nome, Locale locale) {
+        for (String tag : candidatos(locale)) {
+            Optional<EmailTemplate> doBanco = templateRepo.findByNomeAndLocale(nome, tag);
+            if (doBanco.isPresent()) {
+                EmailTemplate t = doBanco.get();
+                return Optional.of(TemplateCompilado.compilar(nome, tag, t.getVersao(), t.getConteudo()));
+            }
+            ClassPathResource arquivo = new ClassPathResource(
+                    PASTA + nome + (tag.isEmpty() ? "" : "_" + tag.replace('-', '_')) + ".html");
+            if (arquivo.exists()) {
+                try (InputStream in = arquivo.getInputStream()) {
+                    return Optional.of(TemplateCompilado.compilar(nome, tag, 0,
+                            new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private record Chave(String nome, long geracao, Locale locale) {}
+
+    // do mais específico para o padrão: "pt-BR", "pt", ""
+    private static List<String> candidatos(Locale locale) {
+        List<String> tags = new ArrayList<>(3);
+        if (locale != null) {
+            String completa = locale.toLanguageTag();
+            if (!completa.isEmpty() && !"und".equals(completa)) {
+                tags.add(completa);
+            }
+            if (!locale.getLanguage().isEmpty() && !locale.getLanguage().equals(completa)) {
+                tags.add(locale.getLanguage());
+            }
+        }
+        tags.add("");
+        return tags;
     }
 }
@@ -0,0 +1,276 @@
+package com.notificacao.notificador.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notificacao.notificador.config.EnvioProperties;
+import com.notificacao.notificador.dto.DestinatarioLoteDTO;
+import com.notificacao.notificador.model.EmailLog;
+import com.notificacao.notificador.model.LoteEnvio;
+import com.notificacao.notificador.model.Prioridade;
+import com.notificacao.notificador.repository.EmailLogRepository;
+import com.notificacao.notificador.repository.LoteEnvioRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Envio em lote: grava os {@code EmailLog} em batches JDBC (ids por sequence, ver
+ * {@code hibernate.jdbc.batch_size}) e entrega os ids à fila de envio em blocos,
+ * sem segurar a thread da requisição.
+ */
+@Service
+public class EnvioLoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvioLoteService.class);
+
+    private final TransactionTemplate transacao;
+    private final EmailLogRepository emailLogRepo;
+    private final LoteEnvioRepository loteRepo;
+    private final EmailTemplateService templateService;
+    private final ConteudoEmailService conteudo;
+    private final EmailDispatcher dispatcher;
+    private final EstatisticasEmailService estatisticas;
+    private final EnvioProperties props;
+    private final ObjectReader leitorNdjson;
+    private final ObjectWriter escritorNdjson;
+    private final Validator validator;
+
+    // um único gravador: lotes concorrentes são gravados em sequência
+    private final ExecutorService gravador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lote-email");
+        t.setDaemon(true);
+        return t;
+    });
+    // arquivos temporários de lotes NDJSON ainda não gravados; os que sobrarem no encerramento
+    // são de tarefas que o shutdownNow tirou da fila antes de rodarem
+    private final Set<Path> arquivos = ConcurrentHashMap.newKeySet();
+
+    public EnvioLoteService(TransactionTemplate transacao,
+                            EmailLogRepository emailLogRepo,
+                            LoteEnvioRepository loteRepo,
+                            EmailTemplateService templateService,
+                            ConteudoEmailService conteudo,
+                            EmailDispatcher dispatcher,
+                            EstatisticasEmailService estatisticas,
+                            EnvioProperties props,
+                            ObjectMapper objectMapper,
+                            Validator validator) {
+        this.transacao = transacao;
+        this.emailLogRepo = emailLogRepo;
+        this.loteRepo = loteRepo;
+        this.templateService = templateService;
+        this.conteudo = conteudo;
+        this.dispatcher = dispatcher;
+        this.estatisticas = estatisticas;
+        this.props = props;
+        this.leitorNdjson = objectMapper.readerFor(DestinatarioLoteDTO.class);
+        this.escritorNdjson = objectMapper.writerFor(DestinatarioLoteDTO.class);
+        this.validator = validator;
+    }
+
+    /**
+     * Cria o lote e grava/enfileira os destinatários em segundo plano. Retorna logo com o job.
+     */
+    public LoteEnvio enviarEmSegundoPlano(String template, String assunto, List<DestinatarioLoteDTO> destinatarios) {
+        LoteEnvio lote = iniciar(template, assunto);
+        gravador.execute(() -> gravar(lote, destinatarios.iterator()));
+        return lote;
+    }
+
+    /**
+     * Variante para um corpo NDJSON (um destinatário por linha). A thread da requisição só lê e
+     * valida cada linha, copiando-as para um arquivo temporário; o gravador lê o arquivo em
+     * segundo plano, como no JSON. Nem a lista inteira nem a espera da backpressure ficam na
+     * thread do Tomcat.
+     *
+     * @throws IllegalArgumentException com o número da linha, se alguma for inválida
+     */
+    public LoteEnvio enviarEmSegundoPlano(String template, String assunto, InputStream ndjson) throws IOException {
+        if (!templateService.existe(template)) {
+            throw new IllegalArgumentException("Template desconhecido: " + template);
+        }
+        Path arquivo = Files.createTempFile("lote-email-", ".ndjson");
+        arquivos.add(arquivo);
+        try {
+            copiarValidando(ndjson, arquivo);
+            LoteEnvio lote = iniciar(template, assunto);
+            gravador.execute(() -> gravar(lote, arquivo));
+            return lote;
+        } catch (IOException | RuntimeException e) {
+            apagar(arquivo);
+            throw e;
+        }
+    }
+
+    public Map<String, Object> progresso(LoteEnvio lote) {
+        Map<String, Long> porStatus = new LinkedHashMap<>();
+        long processados = 0;
+        for (Object[] linha : emailLogRepo.contarPorStatusDoLote(lote.getId())) {
+            String status = (String) linha[0];
+            long quantidade = (Long) linha[1];
+            porStatus.put(status, quantidade);
+            if (!"PENDENTE".equals(status) && !"RETRY".equals(status)) {
+                processados += quantidade;
+            }
+        }
+
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("id", lote.getId());
+        resposta.put("status", lote.getStatus());
+        resposta.put("total", lote.getTotal());
+        resposta.put("processados", processados);
+        resposta.put("porStatus", porStatus);
+        if (lote.getErro() != null) {
+            resposta.put("erro", lote.getErro());
+        }
+        return resposta;
+    }
+
+    private LoteEnvio iniciar(String template, String assunto) {
+        if (!templateService.existe(template)) {
+            throw new IllegalArgumentException("Template desconhecido: " + template);
+        }
+        LoteEnvio lote = new LoteEnvio();
+        lote.setTemplate(template);
+        lote.setAssunto(assunto);
+        lote.setStatus("RECEBENDO");
+        lote.setCriadoEm(LocalDateTime.now());
+        return loteRepo.save(lote);
+    }
+
+    private void copiarValidando(InputStream ndjson, Path arquivo) throws IOException {
+        long linha = 0;
+        try (MappingIterator<DestinatarioLoteDTO> destinatarios = leitorNdjson.readValues(ndjson);
+             BufferedWriter saida = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            while (destinatarios.hasNextValue()) {
+                DestinatarioLoteDTO destinatario = destinatarios.nextValue();
+                linha++;
+                Set<ConstraintViolation<DestinatarioLoteDTO>> erros = validator.validate(destinatario);
+                if (!erros.isEmpty()) {
+                    throw new IllegalArgumentException("Linha " + linha + ": " + erros.iterator().next().getMessage());
+                }
+                saida.write(escritorNdjson.writeValueAsString(destinatario));
+                saida.newLine();
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Linha " + (linha + 1) + ": JSON inválido", e);
+        }
+        if (linha == 0) {
+            throw new IllegalArgumentException("Informe ao menos um destinatario");
+        }
+    }
+
+    private void gravar(LoteEnvio lote, Path arquivo) {
+        try (MappingIterator<DestinatarioLoteDTO> destinatarios = leitorNdjson.readValues(arquivo.toFile())) {
+            gravar(lote, destinatarios);
+        } catch (IOException e) {
+            logger.error("Erro ao ler o lote {} do arquivo temporário", lote.getId(), e);
+            lote.setStatus("ERRO");
+            lote.setErro(e.getMessage());
+            loteRepo.save(lote);
+        } finally {
+            apagar(arquivo);
+        }
+    }
+
+    private void apagar(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            logger.warn("Não foi possível apagar {}", arquivo, e);
+        } finally {
+            arquivos.remove(arquivo);
+        }
+    }
+
+    private void gravar(LoteEnvio lote, Iterator<DestinatarioLoteDTO> destinatarios) {
+        int chunk = Math.max(1, props.getLoteTamanhoChunk());
+        try {
+            List<EmailLog> logs = new ArrayList<>(chunk);
+            while (destinatarios.hasNext()) {
+                logs.add(novoLog(lote, destinatarios.next()));
+                if (logs.size() == chunk || !destinatarios.hasNext()) {
+                    aguardarFila();
+                    // o total vai junto com o chunk: enquanto o lote está RECEBENDO, o progresso
+                    // mostra quantos destinatários já foram gravados, e processados nunca passa dele
+                    long total = lote.getTotal() + logs.size();
+                    List<EmailLog> salvos = transacao.execute(status -> {
+                        List<EmailLog> gravados = emailLogRepo.saveAll(logs);
+                        loteRepo.atualizarTotal(lote.getId(), total);
+                        return gravados;
+                    });
+                    lote.setTotal(total);
+                    for (EmailLog log : salvos) {
+                        estatisticas.registrar(log);
+                        dispatcher.submeter(log.getId(), Prioridade.EM_MASSA);
+                    }
+                    logs.clear();
+                }
+            }
+            lote.setStatus("ENFILEIRADO");
+        } catch (Exception e) {
+            logger.error("Erro ao gravar lote {}", lote.getId(), e);
+            lote.setStatus("ERRO");
+            lote.setErro(e.getMessage());
+        }
+        loteRepo.save(lote);
+    }
+
+    private EmailLog novoLog(LoteEnvio lote, DestinatarioLoteDTO destinatario) {
+        Map<String, String> variaveis = destinatario.variaveis() != null ? destinatario.variaveis() : Map.of();
+        EmailLog log = new EmailLog();
+        log.setDestinatario(destinatario.email());
+        log.setAssunto(lote.getAssunto());
+        Locale locale = destinatario.locale() != null ? Locale.forLanguageTag(destinatario.locale()) : null;
+        // só a referência ao template e as variáveis; o HTML é montado no envio
+        conteudo.deTemplate(lote.getTemplate(), locale, variaveis).aplicar(log);
+        log.setEnviadoEm(LocalDateTime.now());
+        log.setStatus("PENDENTE");
+        log.setTentativas(0);
+        log.setLoteId(lote.getId());
+        // fila própria no dispatcher: a campanha não passa na frente dos transacionais
+        log.setPrioridade(Prioridade.EM_MASSA);
+        return log;
+    }
+
+    // backpressure: não deixa a fila em memória crescer sem limite enquanto o lote é gravado
+    private void aguardarFila() throws InterruptedException {
+        while (dispatcher.tamanhoFila(Prioridade.EM_MASSA) > props.getLoteMaxFila()) {
+            Thread.sleep(100);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        // linhas já gravadas continuam PENDENTE e são reivindicadas pela varredura do dispatcher
+        gravador.shutdownNow();
+        for (Path arquivo : arquivos) {
+            apagar(arquivo);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.EstatisticasProperties;
+import com.notificacao.notificador.dto.EstatisticaDTO;
+import com.notificacao.notificador.model.EmailLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estatísticas de envio pré-agregadas. Cada transição de status incrementa um contador em memória
+ * por minuto, status e domínio do destinatário; periodicamente os minutos fechados são somados
+ * (MERGE) à tabela {@code email_estatistica}, por minuto e por hora. Uma consulta lê só os
+ * buckets do intervalo pedido mais o que ainda está em memória: o custo depende do número de
+ * buckets, não do tamanho de {@code email_log}.
+ * <p>
+ * Várias instâncias somam os próprios contadores nas mesmas linhas. O que ainda não foi gravado
+ * por outra instância (no máximo um intervalo) não aparece aqui.
+ */
+@Service
+public class EstatisticasEmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstatisticasEmailService.class);
+
+    static final String OUTROS = "outros";
+
+    private static final String MERGE =
+            "MERGE INTO email_estatistica e " +
+            "USING (VALUES (CAST(? AS VARCHAR(1)), CAST(? AS TIMESTAMP), CAST(? AS VARCHAR(30)), CAST(? AS VARCHAR(255)), CAST(? AS BIGINT))) " +
+            "AS n(granularidade, inicio, status, dominio, total) " +
+            "ON e.granularidade = n.granularidade AND e.inicio = n.inicio AND e.status = n.status AND e.dominio = n.dominio " +
+            "WHEN MATCHED THEN UPDATE SET total = e.total + n.total " +
+            "WHEN NOT MATCHED THEN INSERT (granularidade, inicio, status, dominio, total) " +
+            "VALUES (n.granularidade, n.inicio, n.status, n.dominio, n.total)";
+
+    public enum Granularidade {
+        MINUTO("M", ChronoUnit.MINUTES), HORA("H", ChronoUnit.HOURS);
+
+        private final String codigo;
+        private final ChronoUnit unidade;
+
+        Granularidade(String codigo, ChronoUnit unidade) {
+            this.codigo = codigo;
+            this.unidade = unidade;
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final EstatisticasProperties props;
+    private final Map<Chave, LongAdder> contadores = new ConcurrentHashMap<>();
+    // consolidação e leitura não se intercalam: um bucket nunca aparece em memória e no banco ao mesmo tempo
+    private final ReentrantLock consolidando = new ReentrantLock();
+    private final ScheduledExecutorService agendador;
+
+    public EstatisticasEmailService(JdbcTemplate jdbc,
+                                    TransactionTemplate transacao,
+                                    EstatisticasProperties props,
+                                    MeterRegistry metricas) {
+        this.jdbc = jdbc;
+        this.transacao = transacao;
+        this.props = props;
+        Gauge.builder("notificador.estatisticas.chaves", contadores, Map::size)
+                .description("Contadores de estatística ainda em memória")
+                .register(metricas);
+
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "estatisticas-email");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // só com a aplicação pronta, como os demais jobs; até lá as transições ficam na memória
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarConsolidacao() {
+        agendador.scheduleWithFixedDelay(this::consolidarSeguro,
+                props.getIntervaloMs(), props.getIntervaloMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Conta a transição do log para o status atual. Só memória; seguro para o caminho de envio.
+     */
+    public void registrar(EmailLog log) {
+        registrar(log.getStatus(), log.getDestinatario(), LocalDateTime.now());
+    }
+
+    void registrar(String status, String destinatario, LocalDateTime quando) {
+        if (status == null) {
+            return;
+        }
+        LocalDateTime minuto = quando.truncatedTo(ChronoUnit.MINUTES);
+        Chave chave = new Chave(minuto, status, LimiteDominioService.extrairDominio(destinatario));
+        LongAdder contador = contadores.get(chave);
+        if (contador == null) {
+            if (contadores.size() >= props.getMaxChaves()) {
+                chave = new Chave(minuto, status, OUTROS);
+            }
+            contador = contadores.computeIfAbsent(chave, k -> new LongAdder());
+        }
+        contador.increment();
+    }
+
+    /**
+     * Totais por status, por domínio e a série por bucket no intervalo {@code [de, ate)}.
+     */
+    public Map<String, Object> consultar(Granularidade granularidade, LocalDateTime de, LocalDateTime ate,
+                                         String status, String dominio) {
+        LocalDateTime inicio = de.truncatedTo(granularidade.unidade);
+        Map<Chave, Long> buckets = new HashMap<>();
+
+        consolidando.lock();
+        try {
+            StringBuilder sql = new StringBuilder(
+                    "SELECT inicio, status, dominio, total FROM email_estatistica " +
+                    "WHERE granularidade = ? AND inicio >= ? AND inicio < ?");
+            List<Object> args = new ArrayList<>(List.of(granularidade.codigo, Timestamp.valueOf(inicio), Timestamp.valueOf(ate)));
+            if (status != null) {
+                sql.append(" AND status = ?");
+                args.add(status);
+            }
+            if (dominio != null) {
+                sql.append(" AND dominio = ?");
+                args.add(dominio);
+            }
+            jdbc.query(sql.toString(), rs -> {
+                Chave chave = new Chave(rs.getObject("inicio", LocalDateTime.class), rs.getString("status"), rs.getString("dominio"));
+                buckets.merge(chave, rs.getLong("total"), Long::sum);
+            }, args.toArray());
+
+            contadores.forEach((chave, contador) -> {
+                LocalDateTime bucket = chave.minuto().truncatedTo(granularidade.unidade);
+                if (!bucket.isBefore(inicio) && bucket.isBefore(ate)
+                        && (status == null || status.equals(chave.status()))
+                        && (dominio == null || dominio.equals(chave.dominio()))) {
+                    long total = contador.sum();
+                    if (total > 0) {
+                        buckets.merge(new Chave(bucket, chave.status(), chave.dominio()), total, Long::sum);
+                    }
+                }
+            });
+        } finally {
+            consolidando.unlock();
+        }
+
+        Map<String, Long> totais = new TreeMap<>();
+        Map<String, Map<String, Long>> porDominio = new TreeMap<>();
+        List<EstatisticaDTO> serie = new ArrayList<>(buckets.size());
+        buckets.forEach((chave, total) -> {
+            totais.merge(chave.status(), total, Long::sum);
+            porDominio.computeIfAbsent(chave.dominio(), d -> new TreeMap<>()).merge(chave.status(), total, Long::sum);
+            serie.add(new EstatisticaDTO(chave.minuto(), chave.status(), chave.dominio(), total));
+        });
+        serie.sort(Comparator.comparing(EstatisticaDTO::inicio)
+                .thenComparing(EstatisticaDTO::status)
+                .thenComparing(EstatisticaDTO::dominio));
+
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("granularidade", granularidade.name().toLowerCase(Locale.ROOT));
+        resposta.put("de", inicio);
+        resposta.put("ate", ate);
+        resposta.put("totais", totais);
+        resposta.put("porDominio", porDominio);
+        resposta.put("serie", serie);
+        return resposta;
+    }
+
+    private void consolidarSeguro() {
+        try {
+            consolidar(false);
+        } catch (Exception e) {
+            logger.error("Erro ao consolidar estatísticas de envio", e);
+        }
+    }
+
+    /**
+     * Grava os minutos já fechados (ou tudo, com {@code tudo}) e apaga buckets fora da retenção.
+     */
+    public void consolidar(boolean tudo) {
+        LocalDateTime agora = LocalDateTime.now();
+        // um minuto de folga: quem pegou o contador na virada do minuto ainda pode estar incrementando
+        LocalDateTime limite = agora.truncatedTo(ChronoUnit.MINUTES).minusMinutes(1);
+
+        consolidando.lock();
+        try {
+            Map<Chave, Long> minutos = new HashMap<>();
+            for (Chave chave : contadores.keySet()) {
+                if (tudo || chave.minuto().isBefore(limite)) {
+                    LongAdder contador = contadores.remove(chave);
+                    if (contador != null && contador.sum() > 0) {
+                        minutos.put(chave, contador.sum());
+                    }
+                }
+            }
+            if (!minutos.isEmpty()) {
+                Map<Chave, Long> horas = new HashMap<>();
+                minutos.forEach((chave, total) -> horas.merge(
+                        new Chave(chave.minuto().truncatedTo(ChronoUnit.HOURS), chave.status(), chave.dominio()),
+                        total, Long::sum));
+                try {
+                    transacao.executeWithoutResult(s -> {
+                        jdbc.batchUpdate(MERGE, linhas(Granularidade.MINUTO, minutos));
+                        jdbc.batchUpdate(MERGE, linhas(Granularidade.HORA, horas));
+                    });
+                } catch (RuntimeException e) {
+                    // volta para a memória e entra na próxima consolidação
+                    minutos.forEach((chave, total) -> contadores.computeIfAbsent(chave, k -> new LongAdder()).add(total));
+                    throw e;
+                }
+            }
+        } finally {
+            consolidando.unlock();
+        }
+
+        jdbc.update("DELETE FROM email_estatistica WHERE granularidade = 'M' AND inicio < ?",
+                Timestamp.valueOf(agora.minusHours(props.getRetencaoMinutosHoras())));
+        jdbc.update("DELETE FROM email_estatistica WHERE granularidade = 'H' AND inicio < ?",
+                Timestamp.valueOf(agora.minusDays(props.getRetencaoHorasDias())));
+    }
+
+    private static List<Object[]> linhas(Granularidade granularidade, Map<Chave, Long> buckets) {
+        List<Object[]> linhas = new ArrayList<>(buckets.size());
+        buckets.forEach((chave, total) -> linhas.add(new Object[] {
+                granularidade.codigo, Timestamp.valueOf(chave.minuto()), chave.status(), chave.dominio(), total}));
+        return linhas;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+        try {
+            consolidar(true);
+        } catch (Exception e) {
+            logger.warn("Estatísticas em memória perdidas no encerramento: {}", e.getMessage());
+        }
+    }
+
+    // minuto é o início do bucket (truncado para hora nos buckets por hora)
+    private record Chave(LocalDateTime minuto, String status, String dominio) {}
+}
@@ -0,0 +1,277 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.EventosProperties;
+import com.notificacao.notificador.dto.EmailLogResumoDTO;
+import com.notificacao.notificador.model.EmailLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Eventos de mudança de status dos {@link EmailLog} para o painel admin, via Server-Sent Events.
+ * <p>
+ * Quem publica (workers de envio, relay do outbox, controller) não toma lock: pega o próximo id
+ * de uma sequência atômica, grava o evento por CAS num anel em memória e avisa os assinantes. Cada
+ * assinante tem um cursor nesse anel e a escrita na conexão acontece num pool separado, sempre em
+ * ordem de id e sem buracos. Um assinante que fica mais de {@code buffer-assinante} eventos para
+ * trás é desconectado e, ao reconectar com {@code Last-Event-ID}, retoma do anel (ou recebe
+ * {@code recarregar}, se o id já saiu dele). Com o painel aberto e parado, nada é lido do banco.
+ * <p>
+ * Os eventos são desta instância. O id leva uma época sorteada a cada start ({@code época-seq}):
+ * reconectar em outra instância, ou nesta depois de um restart, dá {@code recarregar}. Com várias
+ * instâncias atrás do balanceador, o painel só vê ao vivo os envios da instância em que está
+ * conectado; os das outras aparecem quando a listagem é buscada de novo.
+ */
+@Service
+public class EventosEmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventosEmailService.class);
+
+    private static final Object HEARTBEAT = new Object();
+    private static final Object RECARREGAR = new Object();
+
+    private final EventosProperties props;
+    private final String epoca = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequencia = new AtomicLong();
+    // evento de id n fica em n % tamanho; um publicador atrasado não sobrescreve um id maior
+    private final AtomicReferenceArray<Evento> historico;
+    // quantos eventos um assinante pode ficar para trás: o buffer, limitado ao que o anel ainda guarda
+    private final int atrasoMaximo;
+
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor escritores;
+    private final ScheduledExecutorService heartbeat;
+    private final Counter descartados;
+
+    public EventosEmailService(EventosProperties props, MeterRegistry metricas) {
+        this.props = props;
+        this.historico = new AtomicReferenceArray<>(Math.max(1, props.getHistorico()));
+        this.atrasoMaximo = Math.min(Math.max(1, props.getBufferAssinante()), historico.length());
+
+        int n = Math.max(1, props.getMaxAssinantes());
+        AtomicInteger seq = new AtomicInteger();
+        // no máximo uma escrita em andamento por assinante
+        this.escritores = new ThreadPoolExecutor(n, n, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "eventos-email-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.escritores.allowCoreThreadTimeOut(true);
+
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "eventos-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        this.heartbeat.scheduleWithFixedDelay(() -> assinantes.forEach(a -> controlar(a, HEARTBEAT)),
+                props.getHeartbeatMs(), props.getHeartbeatMs(), TimeUnit.MILLISECONDS);
+
+        this.descartados = Counter.builder("notificador.eventos.descartados")
+                .description("Assinantes desconectados por não acompanharem os eventos")
+                .register(metricas);
+        Gauge.builder("notificador.eventos.assinantes", assinantes, Set::size)
+                .register(metricas);
+    }
+
+    /**
+     * Publica o estado atual do log. Não bloqueia: assinantes lentos são descartados.
+     */
+    public void publicar(EmailLog log) {
+        EmailLogResumoDTO resumo = new EmailLogResumoDTO(log.getId(), log.getDestinatario(), log.getAssunto(),
+                log.getEnviadoEm(), log.getStatus(), log.getTentativas());
+        Evento evento = new Evento(sequencia.incrementAndGet(), resumo);
+        int posicao = posicao(evento.id());
+        Evento anterior;
+        do {
+            anterior = historico.get(posicao);
+        } while ((anterior == null || anterior.id() < evento.id())
+                && !historico.compareAndSet(posicao, anterior, evento));
+        for (Assinante a : assinantes) {
+            if (evento.id() - a.proximo().get() >= atrasoMaximo) {
+                descartar(a);
+            } else {
+                agendarEscrita(a);
+            }
+        }
+    }
+
+    /**
+     * Abre uma conexão SSE. Com {@code ultimoId} (o {@code Last-Event-ID} recebido), reenvia antes
+     * os eventos posteriores a ele.
+     *
+     * @throws IllegalStateException se o limite de conexões simultâneas já foi atingido
+     */
+    public SseEmitter assinar(String ultimoId) {
+        if (assinantes.size() >= props.getMaxAssinantes()) {
+            throw new IllegalStateException("Limite de conexões de eventos atingido");
+        }
+        Assinante assinante = new Assinante(new SseEmitter(props.getTimeoutMs()), new ArrayBlockingQueue<>(4));
+        assinante.emitter().onCompletion(() -> assinantes.remove(assinante));
+        assinante.emitter().onTimeout(() -> assinantes.remove(assinante));
+        assinante.emitter().onError(e -> assinantes.remove(assinante));
+
+        // o cursor vale antes de entrar no conjunto: o que for publicado depois desta leitura já
+        // está no anel e é entregue por ele, sem lock entre publicar e assinar
+        long atual = sequencia.get();
+        long retomada = ultimoId != null ? retomada(ultimoId, atual) : atual;
+        if (retomada < 0) {
+            assinante.controles().offer(RECARREGAR);
+            retomada = atual;
+        }
+        assinante.controles().offer(new Conectado(retomada));
+        assinante.proximo().set(retomada + 1);
+        assinantes.add(assinante);
+        agendarEscrita(assinante);
+        return assinante.emitter();
+    }
+
+    // o id de onde o assinante retoma, ou -1 se ele é de outra época ou já saiu do anel
+    private long retomada(String ultimoId, long atual) {
+        if (!ultimoId.startsWith(epoca + "-")) {
+            return -1;
+        }
+        try {
+            long id = Long.parseLong(ultimoId.substring(epoca.length() + 1));
+            return id >= 0 && id <= atual && atual - id < atrasoMaximo ? id : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public int assinantes() {
+        return assinantes.size();
+    }
+
+    private int posicao(long id) {
+        return (int) (id % historico.length());
+    }
+
+    // heartbeat que não cabe é só pulado: já há escrita pendente para essa conexão
+    private void controlar(Assinante a, Object item) {
+        if (a.controles().offer(item)) {
+            agendarEscrita(a);
+        }
+    }
+
+    // não acompanhou: melhor reconectar e retomar pelo último id do que segurar memória
+    private void descartar(Assinante a) {
+        if (assinantes.remove(a)) {
+            descartados.increment();
+            a.controles().clear();
+            escritores.execute(() -> a.emitter().complete());
+        }
+    }
+
+    private void agendarEscrita(Assinante a) {
+        if (a.escrevendo().compareAndSet(false, true)) {
+            escritores.execute(() -> escrever(a));
+        }
+    }
+
+    private void escrever(Assinante a) {
+        try {
+            Object item;
+            while ((item = a.controles().poll()) != null) {
+                a.emitter().send(paraSse(item));
+            }
+            Evento evento;
+            while ((evento = disponivel(a)) != null) {
+                if (evento.id() != a.proximo().get()) {
+                    // o anel já deu a volta sobre o cursor
+                    descartar(a);
+                    return;
+                }
+                a.emitter().send(paraSse(evento));
+                a.proximo().incrementAndGet();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // conexão fechada pelo navegador (ou emitter já concluído)
+            logger.debug("Assinante de eventos desconectado: {}", e.getMessage());
+            assinantes.remove(a);
+            a.controles().clear();
+            a.emitter().completeWithError(e);
+            return;
+        } finally {
+            a.escrevendo().set(false);
+        }
+        // item que chegou entre a última leitura e a liberação da flag; um id reservado mas ainda
+        // não gravado no anel agenda a escrita quando o publicador terminar
+        if (!a.controles().isEmpty() || disponivel(a) != null) {
+            agendarEscrita(a);
+        }
+    }
+
+    // o evento na posição do cursor, se já foi gravado; um id maior indica que o cursor ficou para trás
+    private Evento disponivel(Assinante a) {
+        long proximo = a.proximo().get();
+        if (proximo > sequencia.get()) {
+            return null;
+        }
+        Evento evento = historico.get(posicao(proximo));
+        return evento != null && evento.id() >= proximo ? evento : null;
+    }
+
+    private SseEmitter.SseEventBuilder paraSse(Object item) {
+        if (item instanceof Evento e) {
+            return SseEmitter.event().id(epoca + "-" + e.id()).name("email").data(e.email(), MediaType.APPLICATION_JSON);
+        }
+        if (item instanceof Conectado c) {
+            return SseEmitter.event().id(epoca + "-" + c.ultimoId()).name("conectado").data(c.ultimoId());
+        }
+        if (item == RECARREGAR) {
+            return SseEmitter.event().name("recarregar").data("");
+        }
+        return SseEmitter.event().comment("");
+    }
+
+    // antes do graceful shutdown do Tomcat, que esperaria as conexões abertas até o timeout
+    @EventListener(ContextClosedEvent.class)
+    public void desconectarTodos() {
+        for (Assinante a : assinantes) {
+            assinantes.remove(a);
+            a.emitter().complete();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        heartbeat.shutdownNow();
+        escritores.shutdownNow();
+    }
+
+    private record Evento(long id, EmailLogResumoDTO email) {}
+
+    private record Conectado(long ultimoId) {}
+
+    // controles: conectado, recarregar e heartbeat, escritos antes dos eventos do anel
+    private record Assinante(SseEmitter emitter, BlockingQueue<Object> controles, AtomicLong proximo,
+                             AtomicBoolean escrevendo) {
+        Assinante(SseEmitter emitter, BlockingQueue<Object> controles) {
+            this(emitter, controles, new AtomicLong(), new AtomicBoolean());
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.notificacao.notificador.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notificacao.notificador.config.ExportacaoProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exportação do histórico de envios direto de um cursor JDBC para a resposta. As linhas são
+ * escritas conforme chegam do banco, então a memória usada não depende do tamanho da exportação.
+ * Com {@code incluirCorpo}, o HTML de cada linha é renderizado a partir da referência
+ * ({@link ConteudoEmail}); templates e corpos repetidos saem do cache do {@link ConteudoEmailService}.
+ */
+@Service
+public class ExportacaoEmailService {
+
+    public enum Formato { CSV, NDJSON }
+
+    // a cada quantas linhas o buffer é empurrado para o cliente
+    private static final int LINHAS_POR_FLUSH = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate leitura;
+    private final ObjectMapper objectMapper;
+    private final ConteudoEmailService conteudo;
+    private final Semaphore simultaneas;
+
+    public ExportacaoEmailService(DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  ConteudoEmailService conteudo,
+                                  ExportacaoProperties props) {
+        // instância própria: o fetch size não deve valer para o JdbcTemplate compartilhado
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(props.getFetchSize());
+        // alguns drivers (ex.: PostgreSQL) só usam cursor no servidor dentro de uma transação
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.conteudo = conteudo;
+        this.simultaneas = new Semaphore(Math.max(1, props.getMaxSimultaneas()));
+    }
+
+    /**
+     * Reserva uma vaga de exportação e devolve o corpo da resposta que fará a leitura. A vaga
+     * volta quando o corpo termina; quem chama deve também chamar {@link Exportacao#liberar()}
+     * quando a requisição acabar, para o caso de o corpo nunca rodar (timeout da requisição
+     * assíncrona, erro antes de ele ser executado).
+     *
+     * @throws IllegalStateException se o limite de exportações simultâneas já foi atingido
+     */
+    public Exportacao exportar(Formato formato, String status,
+                               LocalDateTime de, LocalDateTime ate, boolean incluirCorpo) {
+        if (!simultaneas.tryAcquire()) {
+            throw new IllegalStateException("Limite de exportações simultâneas atingido");
+        }
+        AtomicBoolean liberada = new AtomicBoolean();
+        Runnable liberar = () -> {
+            if (liberada.compareAndSet(false, true)) {
+                simultaneas.release();
+            }
+        };
+        StreamingResponseBody corpo = saida -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+                Escritor escritor = formato == Formato.CSV ? new EscritorCsv(writer) : new EscritorNdjson(writer);
+                escrever(escritor, status, de, ate, incluirCorpo);
+                writer.flush();
+            } catch (UncheckedIOException e) {
+                // normalmente o cliente desistiu do download; o cursor já foi fechado
+                throw e.getCause();
+            } finally {
+                liberar.run();
+            }
+        };
+        return new Exportacao(corpo, liberar);
+    }
+
+    /**
+     * Corpo da resposta e liberação da vaga; liberar mais de uma vez não tem efeito.
+     */
+    public record Exportacao(StreamingResponseBody corpo, Runnable liberacao) {
+        public void liberar() {
+            liberacao.run();
+        }
+    }
+
+    private void escrever(Escritor escritor, String status, LocalDateTime de, LocalDateTime ate, boolean incluirCorpo) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, destinatario, assunto, enviado_em, status, tentativas, lote_id, erro");
+        if (incluirCorpo) {
+            sql.append(", template, template_versao, template_locale, template_hash, variaveis, corpo_hash, corpo");
+        }
+        sql.append(" FROM email_log WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (status != null) {
+            sql.append(" AND status = ?");
+            params.add(status);
+        }
+        if (de != null) {
+            sql.append(" AND enviado_em >= ?");
+            params.add(Timestamp.valueOf(de));
+        }
+        if (ate != null) {
+            sql.append(" AND enviado_em < ?");
+            params.add(Timestamp.valueOf(ate));
+        }
+        sql.append(" ORDER BY id");
+
+        leitura.executeWithoutResult(tx -> {
+            try {
+                escritor.cabecalho(incluirCorpo);
+                int[] linhas = {0};
+                jdbc.query(sql.toString(), rs -> {
+                    try {
+                        escritor.linha(rs, incluirCorpo, incluirCorpo ? corpo(rs) : null);
+                        if (++linhas[0] % LINHAS_POR_FLUSH == 0) {
+                            escritor.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, params.toArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private String corpo(ResultSet rs) throws SQLException {
+        return conteudo.renderizar(new ConteudoEmail(
+                rs.getString("template"),
+                rs.getObject("template_versao", Long.class),
+                rs.getString("template_locale"),
+                rs.getString("template_hash"),
+                rs.getString("variaveis"),
+                rs.getString("corpo_hash"),
+                rs.getString("corpo")));
+    }
+
+    private interface Escritor {
+        void cabecalho(boolean incluirCorpo) throws IOException;
+
+        void linha(ResultSet rs, boolean incluirCorpo, String corpo) throws SQLException, IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class EscritorCsv implements Escritor {
+        private final Writer out;
+
+        EscritorCsv(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void cabecalho(boolean incluirCorpo) throws IOException {
+            out.write("id,destinatario,assunto,enviadoEm,status,tentativas,loteId,erro");
+            out.write(incluirCorpo ? ",corpo\n" : "\n");
+        }
+
+        @Override
+        public void linha(ResultSet rs, boolean incluirCorpo, String corpo) throws SQLException, IOException {
+            out.write(Long.toString(rs.getLong("id")));
+            campo(rs.getString("destinatario"));
+            campo(rs.getString("assunto"));
+            campo(data(rs.getTimestamp("enviado_em")));
+            campo(rs.getString("status"));
+            campo(rs.getString("tentativas"));
+            campo(rs.getString("lote_id"));
+            campo(rs.getString("erro"));
+            if (incluirCorpo) {
+                campo(corpo);
+            }
+            out.write('\n');
+        }
+
+        private void campo(String valor) throws IOException {
+            out.write(',');
+            if (valor == null) {
+                return;
+            }
+            boolean aspas = false;
+            for (int i = 0; i < valor.length() && !aspas; i++) {
+                char c = valor.charAt(i);
+                aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!aspas) {
+                out.write(valor);
+                return;
+            }
+            out.write('"');
+            out.write(valor.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    private final class EscritorNdjson implements Escritor {
+        private final Writer out;
+        private final JsonGenerator json;
+
+        EscritorNdjson(Writer out) throws IOException {
+            this.out = out;
+            this.json = objectMapper.getFactory().createGenerator(out);
+            // quem fecha e quando esvaziar o buffer da resposta é decidido aqui, não pelo gerador
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            // o separador entre objetos é a quebra de linha escrita em linha()
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void cabecalho(boolean incluirCorpo) {
+        }
+
+        @Override
+        public void linha(ResultSet rs, boolean incluirCorpo, String corpo) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeStringField("destinatario", rs.getString("destinatario"));
+            json.writeStringField("assunto", rs.getString("assunto"));
+            json.writeStringField("enviadoEm", data(rs.getTimestamp("enviado_em")));
+            json.writeStringField("status", rs.getString("status"));
+            numero("tentativas", rs.getLong("tentativas"), rs.wasNull());
+            numero("loteId", rs.getLong("lote_id"), rs.wasNull());
+            json.writeStringField("erro", rs.getString("erro"));
+            if (incluirCorpo) {
+                json.writeStringField("corpo", corpo);
+            }
+            json.writeEndObject();
+            json.flush();
+            out.write('\n');
+        }
+
+        private void numero(String nome, long valor, boolean nulo) throws IOException {
+            if (nulo) {
+                json.writeNullField(nome);
+            } else {
+                json.writeNumberField(nome, valor);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static String data(Timestamp ts) {
+        return ts == null ? null : ts.toLocalDateTime().toString();
+    }
+}
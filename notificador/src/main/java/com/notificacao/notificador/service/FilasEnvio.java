@@ -0,0 +1,134 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.model.Prioridade;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Uma fila FIFO por {@link Prioridade}, consumida com escalonamento justo ponderado (smooth
+ * weighted round-robin). A cada retirada, só as filas não vazias disputam: cada uma acumula o
+ * próprio peso e a de maior crédito é servida, pagando a soma dos pesos em disputa. Sob carga,
+ * cada fila recebe uma fração dos envios proporcional ao peso (a mínima garantida); sem disputa,
+ * qualquer fila usa toda a capacidade. Fila vazia não acumula crédito.
+ */
+final class FilasEnvio {
+
+    private static final Prioridade[] PRIORIDADES = Prioridade.values();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition naoVazia = lock.newCondition();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Item>[] filas = new ArrayDeque[PRIORIDADES.length];
+    private final int[] pesos = new int[PRIORIDADES.length];
+    private final long[] creditos = new long[PRIORIDADES.length];
+    // lidos pelos gauges sem o lock
+    private final AtomicIntegerArray tamanhos = new AtomicIntegerArray(PRIORIDADES.length);
+    private final AtomicInteger total = new AtomicInteger();
+    private boolean fechada;
+
+    FilasEnvio(int pesoCritica, int pesoTransacional, int pesoEmMassa) {
+        for (int i = 0; i < PRIORIDADES.length; i++) {
+            filas[i] = new ArrayDeque<>();
+        }
+        pesos[Prioridade.CRITICA.ordinal()] = Math.max(1, pesoCritica);
+        pesos[Prioridade.TRANSACIONAL.ordinal()] = Math.max(1, pesoTransacional);
+        pesos[Prioridade.EM_MASSA.ordinal()] = Math.max(1, pesoEmMassa);
+    }
+
+    /**
+     * @return {@code false} se as filas já foram fechadas
+     */
+    boolean adicionar(Long logId, Prioridade prioridade) {
+        int i = Prioridade.ou(prioridade).ordinal();
+        lock.lock();
+        try {
+            if (fechada) {
+                return false;
+            }
+            filas[i].addLast(new Item(logId, PRIORIDADES[i], System.nanoTime()));
+            tamanhos.incrementAndGet(i);
+            total.incrementAndGet();
+            naoVazia.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retira o próximo envio, esperando até haver um. Com {@code semEmMassa}, a fila EM_MASSA não
+     * participa (workers reservados).
+     *
+     * @return {@code null} se as filas foram fechadas e não há mais nada elegível
+     */
+    Item proximo(boolean semEmMassa) throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Item item = escolher(semEmMassa);
+                if (item != null) {
+                    return item;
+                }
+                if (fechada) {
+                    return null;
+                }
+                // signalAll: um worker reservado acorda também por EM_MASSA e volta a esperar
+                naoVazia.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Item escolher(boolean semEmMassa) {
+        int escolhida = -1;
+        long somaPesos = 0;
+        for (int i = 0; i < PRIORIDADES.length; i++) {
+            if (filas[i].isEmpty() || (semEmMassa && PRIORIDADES[i] == Prioridade.EM_MASSA)) {
+                if (filas[i].isEmpty()) {
+                    creditos[i] = 0;
+                }
+                continue;
+            }
+            creditos[i] += pesos[i];
+            somaPesos += pesos[i];
+            if (escolhida < 0 || creditos[i] > creditos[escolhida]) {
+                escolhida = i;
+            }
+        }
+        if (escolhida < 0) {
+            return null;
+        }
+        creditos[escolhida] -= somaPesos;
+        tamanhos.decrementAndGet(escolhida);
+        total.decrementAndGet();
+        return filas[escolhida].pollFirst();
+    }
+
+    int tamanho(Prioridade prioridade) {
+        return tamanhos.get(prioridade.ordinal());
+    }
+
+    int tamanho() {
+        return total.get();
+    }
+
+    /**
+     * Não aceita novos envios; os workers esvaziam o que já está na fila e param.
+     */
+    void fechar() {
+        lock.lock();
+        try {
+            fechada = true;
+            naoVazia.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    record Item(Long logId, Prioridade prioridade, long enfileiradoNs) {}
+}
@@ -0,0 +1,17 @@
+package com.notificacao.notificador.service;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Dados de um token já verificado. Imutável, pode ficar em cache até {@code expiraEm}.
+ */
+public record JwtPrincipal(
+    String email,
+    Set<String> roles,
+    Instant expiraEm
+) {
+    public JwtPrincipal {
+        roles = Set.copyOf(roles);
+    }
+}
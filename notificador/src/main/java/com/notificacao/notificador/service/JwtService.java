@@ -1,24 +1,63 @@
 package com.notificacao.notificador.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.notificacao.notificador.config.JwtProperties;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
 import java.util.*;
 
 @Service
 public class JwtService {
 
+    // MessageDigest.getInstance faz busca de provider a cada chamada
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     private final Key key;
     private final long expirationMs;
+    // o parser é imutável e thread-safe: montado uma vez só
+    private final JwtParser parser;
+    // tokens já verificados, pelo SHA-256 do token, até o exp de cada um
+    private final Cache<String, JwtPrincipal> verificados;
 
     public JwtService(JwtProperties jwtProperties) {
         this.key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
         this.expirationMs = jwtProperties.getExpirationMs();
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verificados = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCacheMaximo())
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String chave, JwtPrincipal principal, long agora) {
+                        return tempoAteExpirar(principal);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String chave, JwtPrincipal principal, long agora, long restante) {
+                        return tempoAteExpirar(principal);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String chave, JwtPrincipal principal, long agora, long restante) {
+                        return restante;
+                    }
+                })
+                .build();
     }
 
     public String gerarToken(String email, Set<String> roles) {
@@ -31,42 +70,52 @@ public class JwtService {
                 .compact();
     }
 
-    public boolean validarToken(String token) {
+    /**
+     * Verifica o token (assinatura e expiração) uma única vez e devolve o principal.
+     * Vazio se o token for inválido ou estiver expirado.
+     */
+    public Optional<JwtPrincipal> autenticar(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String chave = hash(token);
+        JwtPrincipal principal = verificados.getIfPresent(chave);
+        if (principal != null) {
+            // a expiração do cache é aproximada; o exp do token é que vale
+            return principal.expiraEm().isAfter(Instant.now()) ? Optional.of(principal) : Optional.empty();
+        }
+
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            principal = lerClaims(parser.parseClaimsJws(token).getBody());
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
+        verificados.put(chave, principal);
+        return Optional.of(principal);
     }
 
-    public String obterEmailDoToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
-
-    public Set<String> obterRolesDoToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        Object rolesObject = claims.get("roles");
-
-        if (rolesObject instanceof Collection<?>) {
-            Collection<?> rolesCollection = (Collection<?>) rolesObject;
-            Set<String> roles = new HashSet<>();
+    private static JwtPrincipal lerClaims(Claims claims) {
+        Set<String> roles = new HashSet<>();
+        if (claims.get("roles") instanceof Collection<?> rolesCollection) {
             for (Object role : rolesCollection) {
                 roles.add(role.toString());
             }
-            return roles;
         }
-        return Collections.emptySet();
+        Date exp = claims.getExpiration();
+        // sem exp o token não entra no cache por mais que alguns minutos
+        Instant expiraEm = exp != null ? exp.toInstant() : Instant.now().plusSeconds(300);
+        return new JwtPrincipal(claims.getSubject(), roles, expiraEm);
+    }
+
+    private static long tempoAteExpirar(JwtPrincipal principal) {
+        long ms = principal.expiraEm().toEpochMilli() - System.currentTimeMillis();
+        return Math.max(0, ms) * 1_000_000L;
+    }
+
+    private static String hash(String token) {
+        byte[] digest = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(digest);
     }
 
 }
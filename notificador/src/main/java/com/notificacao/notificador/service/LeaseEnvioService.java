@@ -0,0 +1,128 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.ClusterProperties;
+import com.notificacao.notificador.model.Prioridade;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Leases dos envios pendentes, para várias instâncias dividirem a mesma fila no banco.
+ * Um {@code EmailLog} PENDENTE/RETRY só é enviado pela instância que detém o lease
+ * ({@code dono} + {@code lease_ate}); leases vencidos (ex.: instância que caiu) podem ser
+ * reivindicados por qualquer outra.
+ */
+@Service
+public class LeaseEnvioService {
+
+    private static final String REIVINDICAR =
+            "UPDATE email_log SET dono = ?, lease_ate = ? WHERE id = ? AND status IN ('PENDENTE', 'RETRY') " +
+            "AND (dono IS NULL OR dono = ? OR lease_ate < ?)";
+
+    private static final String DISPONIVEIS =
+            "SELECT id, prioridade FROM email_log WHERE status IN ('PENDENTE', 'RETRY') " +
+            "AND (proxima_tentativa_em IS NULL OR proxima_tentativa_em <= ?) " +
+            "AND (dono IS NULL OR lease_ate < ?) " +
+            "ORDER BY id FETCH FIRST ? ROWS ONLY FOR UPDATE SKIP LOCKED";
+
+    // evita um IN gigante na renovação
+    private static final int MAXIMO_POR_UPDATE = 500;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final ClusterProperties props;
+    private final String no;
+
+    public LeaseEnvioService(JdbcTemplate jdbc, TransactionTemplate transacao, ClusterProperties props) {
+        this.jdbc = jdbc;
+        this.transacao = transacao;
+        this.props = props;
+        this.no = props.getNo() == null || props.getNo().isBlank() ? gerarNo() : props.getNo();
+    }
+
+    public String getNo() {
+        return no;
+    }
+
+    /**
+     * Toma (ou renova) o lease de um envio. {@code false} se outra instância detém um lease válido
+     * ou se o envio já não está pendente no banco.
+     */
+    public boolean reivindicar(Long logId) {
+        LocalDateTime agora = LocalDateTime.now();
+        return jdbc.update(REIVINDICAR, no, Timestamp.valueOf(validade(agora)), logId, no, Timestamp.valueOf(agora)) == 1;
+    }
+
+    /**
+     * Reivindica até {@code maximo} envios já devidos que não têm dono ou cujo lease venceu.
+     * Linhas sendo reivindicadas por outra instância no mesmo momento são puladas (SKIP LOCKED).
+     */
+    public List<Disponivel> reivindicarDisponiveis(int maximo) {
+        if (maximo <= 0) {
+            return List.of();
+        }
+        return transacao.execute(status -> {
+            Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+            List<Disponivel> disponiveis = jdbc.query(DISPONIVEIS, (rs, i) -> {
+                String prioridade = rs.getString("prioridade");
+                return new Disponivel(rs.getLong("id"), prioridade != null ? Prioridade.valueOf(prioridade) : null);
+            }, agora, agora, maximo);
+            if (!disponiveis.isEmpty()) {
+                Timestamp validade = Timestamp.valueOf(validade(agora.toLocalDateTime()));
+                List<Object[]> linhas = new ArrayList<>(disponiveis.size());
+                for (Disponivel d : disponiveis) {
+                    linhas.add(new Object[] {no, validade, d.id()});
+                }
+                jdbc.batchUpdate("UPDATE email_log SET dono = ?, lease_ate = ? WHERE id = ?", linhas);
+            }
+            return disponiveis;
+        });
+    }
+
+    /**
+     * Estende os leases desta instância sobre os envios informados (na fila, em envio ou
+     * aguardando nova tentativa). Ids de outra instância não são afetados.
+     */
+    public void renovar(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp validade = Timestamp.valueOf(validade(LocalDateTime.now()));
+        List<Long> todos = new ArrayList<>(ids);
+        for (int i = 0; i < todos.size(); i += MAXIMO_POR_UPDATE) {
+            List<Long> parte = todos.subList(i, Math.min(todos.size(), i + MAXIMO_POR_UPDATE));
+            String marcadores = String.join(",", Collections.nCopies(parte.size(), "?"));
+            List<Object> args = new ArrayList<>(parte.size() + 2);
+            args.add(validade);
+            args.add(no);
+            args.addAll(parte);
+            jdbc.update("UPDATE email_log SET lease_ate = ? WHERE dono = ? AND id IN (" + marcadores + ")", args.toArray());
+        }
+    }
+
+    // prioridade nula em logs antigos: o dispatcher usa TRANSACIONAL
+    public record Disponivel(Long id, Prioridade prioridade) {}
+
+    private LocalDateTime validade(LocalDateTime agora) {
+        return agora.plusNanos(props.getLeaseMs() * 1_000_000);
+    }
+
+    private static String gerarNo() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "no";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,159 @@
+package com.notificacao.notificador.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notificacao.notificador.config.CircuitBreakerProperties;
+import com.notificacao.notificador.config.LimiteDominioProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Circuit breakers e rate limiters por domínio do destinatário, mais o limite do relay SMTP.
+ * Um domínio com problema (ou sendo limitado pelo provedor) só adia as próprias mensagens.
+ * Os domínios ficam num mapa limitado que descarta entradas inativas. As métricas não levam o
+ * nome do domínio (cardinalidade): só o total de domínios com circuito não fechado e as transições.
+ */
+@Service
+public class LimiteDominioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimiteDominioService.class);
+
+    // espera mínima antes de reavaliar quando o circuito está em teste (MEIO_ABERTO)
+    private static final long ESPERA_MEIO_ABERTO_MS = 1000;
+
+    private final CircuitBreakerProperties cbProps;
+    private final LimiteDominioProperties props;
+    private final CircuitBreakerService relay;
+    private final TokenBucket limiteRelay;
+    private final Cache<String, Dominio> dominios;
+    private final MeterRegistry metricas;
+
+    public LimiteDominioService(CircuitBreakerProperties cbProps,
+                                LimiteDominioProperties props,
+                                CircuitBreakerService relay,
+                                MeterRegistry metricas) {
+        this.cbProps = cbProps;
+        this.props = props;
+        this.relay = relay;
+        this.limiteRelay = new TokenBucket(props.getRelayEnviosPorSegundo(), props.getRelayRajada());
+        this.dominios = Caffeine.newBuilder()
+                .maximumSize(props.getMaxDominios())
+                .expireAfterAccess(Duration.ofMillis(props.getOciosoExpiraMs()))
+                .build();
+        this.metricas = metricas;
+        Gauge.builder("notificador.dominios.com_problema", this, s -> s.dominiosComProblema().size())
+                .description("Domínios com circuit breaker aberto ou em teste")
+                .register(metricas);
+        Gauge.builder("notificador.dominios.monitorados", dominios, Cache::estimatedSize)
+                .register(metricas);
+    }
+
+    /**
+     * Reserva a vez de enviar para o destinatário. Retorna 0 se pode enviar agora, ou em quantos
+     * milissegundos a mensagem deve ser reagendada (sem contar como tentativa). A espera leva até
+     * 25% a mais, aleatório: as mensagens adiadas juntas não acordam todas no mesmo instante.
+     */
+    public long reservar(String destinatario) {
+        Dominio dominio = dominio(destinatario);
+
+        // primeiro os limites de taxa: um token desperdiçado é inofensivo, já uma permissão
+        // de teste do circuito (MEIO_ABERTO) desperdiçada atrasaria o fechamento
+        long espera = dominio.limite.tentarConsumir();
+        if (espera == 0) {
+            espera = limiteRelay.tentarConsumir();
+        }
+        if (espera > 0) {
+            return comJitter(espera);
+        }
+
+        if (!dominio.circuito.podeTentarEnvio()) {
+            return comJitter(Math.max(ESPERA_MEIO_ABERTO_MS, dominio.circuito.tempoRestanteAbertoMs()));
+        }
+        // o relay é o último a decidir; se ele recusar, a permissão de teste que o domínio acabou
+        // de dar (MEIO_ABERTO) volta, senão o teste do domínio se perde sem nenhum envio
+        if (!relay.podeTentarEnvio()) {
+            dominio.circuito.devolverPermissao();
+            return comJitter(Math.max(ESPERA_MEIO_ABERTO_MS, relay.tempoRestanteAbertoMs()));
+        }
+        return 0;
+    }
+
+    private static long comJitter(long esperaMs) {
+        return esperaMs + ThreadLocalRandom.current().nextLong(esperaMs / 4 + 1);
+    }
+
+    /**
+     * Desfaz uma reserva que não chegou ao SMTP (ex.: o conteúdo não pôde ser montado): sem
+     * resultado para registrar, as permissões de teste do domínio e do relay voltam, senão o
+     * circuito em MEIO_ABERTO esperaria por um resultado que não vem.
+     */
+    public void devolver(String destinatario) {
+        relay.devolverPermissao();
+        dominio(destinatario).circuito.devolverPermissao();
+    }
+
+    public void registrarSucesso(String destinatario) {
+        relay.registrarSucesso();
+        dominio(destinatario).circuito.registrarSucesso();
+    }
+
+    /**
+     * @param falhaDoDestinatario recusa do servidor para o destinatário/domínio; não conta contra o relay
+     */
+    public void registrarFalha(String destinatario, boolean falhaDoDestinatario) {
+        if (!falhaDoDestinatario) {
+            relay.registrarFalha();
+        } else {
+            // o relay respondeu; a recusa não é resultado dele, então a permissão de teste volta
+            relay.devolverPermissao();
+        }
+        dominio(destinatario).circuito.registrarFalha();
+    }
+
+    /**
+     * Domínios cujo circuito não está fechado.
+     */
+    public Map<String, CircuitBreaker.Estado> dominiosComProblema() {
+        Map<String, CircuitBreaker.Estado> resultado = new TreeMap<>();
+        dominios.asMap().forEach((nome, d) -> {
+            if (d.circuito.getEstado() != CircuitBreaker.Estado.FECHADO) {
+                resultado.put(nome, d.circuito.getEstado());
+            }
+        });
+        return resultado;
+    }
+
+    public long dominiosMonitorados() {
+        return dominios.estimatedSize();
+    }
+
+    private Dominio dominio(String destinatario) {
+        return dominios.get(extrairDominio(destinatario), nome -> new Dominio(
+                new CircuitBreaker(nome, cbProps, transicao -> {
+                    logger.warn("Circuit breaker do domínio {}: {} -> {}", nome, transicao.de(), transicao.para());
+                    Counter.builder("notificador.circuito.transicoes")
+                            .tag("circuito", "dominio")
+                            .tag("para", transicao.para().name())
+                            .register(metricas)
+                            .increment();
+                }),
+                new TokenBucket(props.getEnviosPorSegundo(), props.getRajada())));
+    }
+
+    static String extrairDominio(String email) {
+        int arroba = email == null ? -1 : email.lastIndexOf('@');
+        return arroba < 0 ? "" : email.substring(arroba + 1).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Dominio(CircuitBreaker circuito, TokenBucket limite) {}
+}
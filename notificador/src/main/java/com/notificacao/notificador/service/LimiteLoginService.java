@@ -0,0 +1,48 @@
+package com.notificacao.notificador.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notificacao.notificador.config.SenhaProperties;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Limita tentativas nos endpoints de autenticação por IP e por e-mail, antes de qualquer
+ * trabalho de BCrypt. Os limitadores ficam em mapas limitados que descartam entradas inativas.
+ */
+@Service
+public class LimiteLoginService {
+
+    private final SenhaProperties props;
+    private final Cache<String, TokenBucket> porIp;
+    private final Cache<String, TokenBucket> porEmail;
+
+    public LimiteLoginService(SenhaProperties props) {
+        this.props = props;
+        this.porIp = novoMapa(props);
+        this.porEmail = novoMapa(props);
+    }
+
+    /**
+     * Retorna 0 se a tentativa pode seguir, ou em quantos milissegundos tentar de novo.
+     * {@code email} pode ser null nos endpoints que não recebem e-mail.
+     */
+    public long reservar(String ip, String email) {
+        long espera = porIp.get(ip == null ? "" : ip, chave -> new TokenBucket(
+                props.getTentativasPorMinutoIp() / 60.0, props.getRajadaIp())).tentarConsumir();
+        if (espera > 0 || email == null) {
+            return espera;
+        }
+        return porEmail.get(email.trim().toLowerCase(Locale.ROOT), chave -> new TokenBucket(
+                props.getTentativasPorMinutoEmail() / 60.0, props.getRajadaEmail())).tentarConsumir();
+    }
+
+    private static Cache<String, TokenBucket> novoMapa(SenhaProperties props) {
+        return Caffeine.newBuilder()
+                .maximumSize(props.getMaxChaves())
+                .expireAfterAccess(Duration.ofMillis(props.getOciosoExpiraMs()))
+                .build();
+    }
+}
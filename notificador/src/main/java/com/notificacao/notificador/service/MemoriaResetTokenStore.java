@@ -0,0 +1,66 @@
+package com.notificacao.notificador.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens só em memória: emitir e validar não tocam o banco. Os tokens pendentes se perdem num
+ * restart (o usuário pede outro link), e não funciona com mais de uma instância.
+ */
+@Component
+@ConditionalOnProperty(name = "notificador.reset-token.armazenamento", havingValue = "memoria")
+public class MemoriaResetTokenStore implements ResetTokenStore {
+
+    private final Map<String, TokenReset> porHash = new ConcurrentHashMap<>();
+    // hash atual de cada usuário, para o token novo substituir o anterior
+    private final Map<Long, String> porUsuario = new ConcurrentHashMap<>();
+
+    @Override
+    public void salvar(Long usuarioId, String hash, LocalDateTime expiracao) {
+        porHash.put(hash, new TokenReset(usuarioId, expiracao));
+        String anterior = porUsuario.put(usuarioId, hash);
+        if (anterior != null && !anterior.equals(hash)) {
+            porHash.remove(anterior);
+        }
+    }
+
+    @Override
+    public Optional<TokenReset> buscar(String hash) {
+        return Optional.ofNullable(porHash.get(hash));
+    }
+
+    @Override
+    public Optional<TokenReset> consumir(String hash) {
+        TokenReset token = porHash.remove(hash);
+        if (token != null) {
+            porUsuario.remove(token.usuarioId(), hash);
+        }
+        return Optional.ofNullable(token);
+    }
+
+    @Override
+    public void remover(String hash) {
+        consumir(hash);
+    }
+
+    @Override
+    public int removerExpirados(LocalDateTime agora, int lote) {
+        int removidos = 0;
+        Iterator<Map.Entry<String, TokenReset>> it = porHash.entrySet().iterator();
+        while (it.hasNext() && removidos < lote) {
+            Map.Entry<String, TokenReset> e = it.next();
+            if (e.getValue().expiracao().isBefore(agora)) {
+                it.remove();
+                porUsuario.remove(e.getValue().usuarioId(), e.getKey());
+                removidos++;
+            }
+        }
+        return removidos;
+    }
+}
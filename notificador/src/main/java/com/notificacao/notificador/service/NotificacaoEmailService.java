@@ -1,109 +1,192 @@
 package com.notificacao.notificador.service;
 
 import com.notificacao.notificador.model.EmailLog;
+import com.notificacao.notificador.model.EmailTentativa;
 import com.notificacao.notificador.repository.EmailLogRepository;
-import com.notificacao.notificador.service.CircuitBreakerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
 import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class NotificacaoEmailService {
 
+    private static final Logger logger = LoggerFactory.getLogger(NotificacaoEmailService.class);
+
     private final JavaMailSender mailSender;
     private final EmailLogRepository emailLogRepo;
+    private final EmailLogWriter logWriter;
+    private final ConteudoEmailService conteudo;
+    private final ResetTokenService resetTokens;
+    private final EventosEmailService eventos;
+    private final EstatisticasEmailService estatisticas;
+    private final RetryPolicy retryPolicy;
     private final String from;
+    private final MeterRegistry metricas;
 
     @Autowired
-    private CircuitBreakerService circuitBreaker;
+    private LimiteDominioService limites;
 
     public NotificacaoEmailService(JavaMailSender mailSender,
                                    EmailLogRepository emailLogRepo,
-                                   @Value("${spring.mail.from}") String from) {
+                                   EmailLogWriter logWriter,
+                                   ConteudoEmailService conteudo,
+                                   ResetTokenService resetTokens,
+                                   EventosEmailService eventos,
+                                   EstatisticasEmailService estatisticas,
+                                   RetryPolicy retryPolicy,
+                                   @Value("${spring.mail.from}") String from,
+                                   MeterRegistry metricas) {
         this.mailSender = mailSender;
         this.emailLogRepo = emailLogRepo;
+        this.logWriter = logWriter;
+        this.conteudo = conteudo;
+        this.resetTokens = resetTokens;
+        this.eventos = eventos;
+        this.estatisticas = estatisticas;
+        this.retryPolicy = retryPolicy;
         this.from = from;
+        this.metricas = metricas;
     }
 
-    public void enviarComLog(String to, String subject, String htmlBody) {
-        System.out.println("⏳ Iniciando envio de e-mail para: " + to);
+    /**
+     * Executa uma tentativa de envio de um log já persistido. Usado pelos workers da fila de envio.
+     * Cada chamada é uma nova tentativa sobre a mesma linha de {@link EmailLog}; o resultado
+     * indica se (e quando) o dispatcher deve agendar a próxima. O novo status é gravado
+     * pelo {@link EmailLogWriter} em batch, fora do caminho do envio.
+     */
+    public Resultado processar(Long logId) {
+        return logWriter.buscar(logId, emailLogRepo::findById)
+                .filter(log -> "PENDENTE".equals(log.getStatus()) || "RETRY".equals(log.getStatus()))
+                .map(this::processar)
+                .orElse(Resultado.IGNORADO);
+    }
 
-        // Cria log inicial
-        EmailLog log = new EmailLog();
-        log.setDestinatario(to);
-        log.setAssunto(subject);
-        log.setCorpo(htmlBody);
-        log.setEnviadoEm(LocalDateTime.now());
-        log.setStatus("PENDENTE");
-        emailLogRepo.save(log);
-
-        if (!circuitBreaker.podeTentarEnvio()) {
-            System.out.println("⛔ Circuito aberto. Envio bloqueado.");
-
-            EmailLog falhaCircuito = new EmailLog();
-            falhaCircuito.setDestinatario(to);
-            falhaCircuito.setAssunto(subject);
-            falhaCircuito.setCorpo(htmlBody);
-            falhaCircuito.setEnviadoEm(LocalDateTime.now());
-            falhaCircuito.setStatus("FALHA");
-            falhaCircuito.setErro("Circuit breaker ativado");
-            emailLogRepo.save(falhaCircuito);
-
-            return;
+    private Resultado processar(EmailLog log) {
+        // circuito aberto ou domínio/relay acima do limite: adia sem consumir tentativa
+        long espera = limites.reservar(log.getDestinatario());
+        if (espera > 0) {
+            metricas.counter("notificador.envio.adiado").increment();
+            return new Resultado(log.getStatus(), espera, Resultado.NADA_A_GRAVAR);
+        }
+
+        int numero = (log.getTentativas() == null ? 0 : log.getTentativas()) + 1;
+        boolean fallback = numero > 1;
+
+        String subject = log.getAssunto();
+        if (fallback) {
+            subject = "[REENVIO] " + subject;
         }
 
+        LocalDateTime inicio = LocalDateTime.now();
+        long t0 = System.nanoTime();
+        long atrasoMs = -1;
+        boolean assuntoAlterado = false;
+        boolean smtp = false;
         try {
-            System.out.println("📤 Tentativa 1 de envio...");
+            logger.debug("Tentativa {} de envio do log {}", numero, log.getId());
+
+            // o HTML não é gravado de volta; o aviso de fallback e os tokens de redefinição
+            // valem só para esta mensagem. Tokens só no e-mail de redefinição e só para o
+            // destinatário de cada referência, nunca em variáveis de lote ou corpos avulsos
+            String destinatario = log.getDestinatario();
+            String htmlBody = conteudo.renderizar(ConteudoEmail.de(log),
+                    ResetTokenService.TEMPLATE.equals(log.getTemplate())
+                            ? valor -> resetTokens.revelar(valor, destinatario) : null);
+            if (fallback) {
+                htmlBody = "<p>Este é um reenvio automático após falha na entrega inicial.</p>" + htmlBody;
+            }
 
-            sendHtmlEmail(to, subject, htmlBody);
+            smtp = true;
+            sendHtmlEmail(log.getDestinatario(), subject, htmlBody);
 
-            log.setStatus("SUCESSO");
+            log.setStatus(fallback ? "SUCESSO_FALLBACK" : "SUCESSO");
+            log.setAssunto(subject);
+            assuntoAlterado = fallback;
             log.setErro(null);
-            circuitBreaker.registrarSucesso();
-            System.out.println("✅ E-mail enviado com sucesso.");
-        } catch (Exception e1) {
-            System.out.println("⚠️ Erro na tentativa 1: " + e1.getMessage());
-            log.setStatus("RETRY");
-            log.setErro(e1.getMessage());
-            circuitBreaker.registrarFalha();
-
-            emailLogRepo.save(log);
-
-            // Prepara conteúdo de fallback
-            String fallbackSubject = "[REENVIO] " + subject;
-            String fallbackBody =
-                    "<p>Este é um reenvio automático após falha na entrega inicial.</p>" +
-                            htmlBody;
-
-            try {
-                Thread.sleep(5000);
-                System.out.println("🔁 Tentativa 2 de envio com conteúdo de fallback...");
-
-                sendHtmlEmail(to, fallbackSubject, fallbackBody);
-
-                log.setStatus("SUCESSO_FALLBACK");
-                log.setAssunto(fallbackSubject);
-                log.setCorpo(fallbackBody);
-                log.setErro(null);
-                System.out.println("✅ E-mail fallback enviado com sucesso.");
-                circuitBreaker.registrarSucesso();
-            } catch (Exception e2) {
-                System.out.println("❌ Erro na tentativa 2 (fallback): " + e2.getMessage());
+            log.setProximaTentativaEm(null);
+            limites.registrarSucesso(log.getDestinatario());
+        } catch (Exception e) {
+            logger.warn("Falha na tentativa {} do log {}: {}", numero, log.getId(), e.getMessage());
+            log.setErro(e.getMessage());
+            if (smtp) {
+                limites.registrarFalha(log.getDestinatario(), falhaDoDestinatario(e));
+            } else {
+                // falha ao montar o conteúdo não diz nada sobre o relay nem o destinatário
+                limites.devolver(log.getDestinatario());
+            }
+
+            if (retryPolicy.podeRetentar(numero)) {
+                atrasoMs = retryPolicy.atrasoMs(numero);
+                log.setStatus("RETRY");
+                log.setProximaTentativaEm(LocalDateTime.now().plusNanos(atrasoMs * 1_000_000));
+            } else {
                 log.setStatus("FALHA");
-                log.setErro(e2.getMessage());
-                circuitBreaker.registrarFalha();
+                log.setProximaTentativaEm(null);
             }
         }
 
+        long duracaoNs = System.nanoTime() - t0;
+        log.setTentativas(numero);
         log.setEnviadoEm(LocalDateTime.now());
-        emailLogRepo.save(log);
-        System.out.println("📋 Log salvo com status: " + log.getStatus());
+        CompletableFuture<Boolean> gravado = logWriter.atualizar(log, assuntoAlterado);
+        eventos.publicar(log);
+        estatisticas.registrar(log);
+        registrarTentativa(log, numero, inicio, duracaoNs / 1_000_000);
+        registrarMetricas(log.getStatus(), duracaoNs);
+        logger.debug("Log {} após a tentativa {}: status={}", log.getId(), numero, log.getStatus());
+
+        return new Resultado(log.getStatus(), atrasoMs, gravado);
+    }
+
+    private void registrarTentativa(EmailLog log, int numero, LocalDateTime inicio, long duracaoMs) {
+        EmailTentativa tentativa = new EmailTentativa();
+        tentativa.setEmailLogId(log.getId());
+        tentativa.setNumero(numero);
+        tentativa.setStatus(log.getStatus());
+        tentativa.setErro(log.getErro());
+        tentativa.setIniciadaEm(inicio);
+        tentativa.setDuracaoMs(duracaoMs);
+        logWriter.registrarTentativa(tentativa);
+    }
+
+    // duração de cada tentativa por status; RETRY não é desfecho, os demais são
+    private void registrarMetricas(String status, long duracaoNs) {
+        Timer.builder("notificador.envio.tentativa")
+                .description("Duração de cada tentativa de envio SMTP")
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(metricas)
+                .record(duracaoNs, TimeUnit.NANOSECONDS);
+        if (!"RETRY".equals(status)) {
+            metricas.counter("notificador.envio.concluido", "status", status).increment();
+        }
+    }
+
+    // recusa do servidor para o endereço (ex.: 550 mailbox unavailable), não problema no relay
+    private static boolean falhaDoDestinatario(Exception e) {
+        if (e instanceof MailSendException mse) {
+            return mse.getFailedMessages().values().stream().anyMatch(f -> f instanceof SendFailedException);
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SendFailedException) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void sendHtmlEmail(String to, String subject, String htmlBody) throws MessagingException {
@@ -115,4 +198,18 @@ public class NotificacaoEmailService {
         helper.setText(htmlBody, true);
         mailSender.send(message);
     }
+
+    /**
+     * Resultado de uma tentativa. {@code reagendarEmMs >= 0} indica que deve haver nova tentativa.
+     *
+     * @param gravado completa quando o novo status chega ao banco (ver {@link EmailLogWriter#atualizar})
+     */
+    public record Resultado(String status, long reagendarEmMs, CompletableFuture<Boolean> gravado) {
+        static final CompletableFuture<Boolean> NADA_A_GRAVAR = CompletableFuture.completedFuture(true);
+        static final Resultado IGNORADO = new Resultado(null, -1, NADA_A_GRAVAR);
+
+        public boolean reagendar() {
+            return reagendarEmMs >= 0;
+        }
+    }
 }
@@ -0,0 +1,253 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.OutboxProperties;
+import com.notificacao.notificador.model.EmailLog;
+import com.notificacao.notificador.model.OutboxEmail;
+import com.notificacao.notificador.model.Prioridade;
+import com.notificacao.notificador.repository.EmailLogRepository;
+import com.notificacao.notificador.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbox transacional de e-mails. A operação de negócio grava o e-mail em {@code outbox_email}
+ * na própria transação; depois do commit, o relay reivindica as linhas em lotes
+ * ({@code FOR UPDATE SKIP LOCKED}), cria os {@link EmailLog} PENDENTE, apaga as linhas do outbox
+ * e entrega os ids ao {@link EmailDispatcher}.
+ * <p>
+ * Entrega pelo menos uma vez: se o relay cair antes do commit, as linhas voltam a ser reivindicadas;
+ * a chave de idempotência (única também em {@code email_log}) evita o segundo {@code EmailLog}.
+ * Ids criados mas não entregues ao dispatcher ficam PENDENTE e são reivindicados pela varredura
+ * do {@link EmailDispatcher}.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final String REIVINDICAR =
+            "SELECT id, chave_idempotencia, destinatario, assunto, template, template_versao, template_locale, " +
+            "template_hash, variaveis, corpo_hash, corpo, prioridade, criado_em FROM outbox_email " +
+            "ORDER BY id FETCH FIRST ? ROWS ONLY FOR UPDATE SKIP LOCKED";
+
+    private final OutboxEmailRepository outboxRepo;
+    private final EmailLogRepository emailLogRepo;
+    private final EmailDispatcher dispatcher;
+    private final EventosEmailService eventos;
+    private final EstatisticasEmailService estatisticas;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final OutboxProperties props;
+    private final ScheduledExecutorService relay;
+    private final AtomicBoolean repasseAgendado = new AtomicBoolean();
+    private volatile boolean iniciado;
+
+    private final Counter repassados;
+    private final Counter duplicados;
+    private final Timer atraso;
+
+    public OutboxService(OutboxEmailRepository outboxRepo,
+                         EmailLogRepository emailLogRepo,
+                         EmailDispatcher dispatcher,
+                         EventosEmailService eventos,
+                         EstatisticasEmailService estatisticas,
+                         JdbcTemplate jdbc,
+                         TransactionTemplate transacao,
+                         OutboxProperties props,
+                         MeterRegistry metricas) {
+        this.outboxRepo = outboxRepo;
+        this.emailLogRepo = emailLogRepo;
+        this.dispatcher = dispatcher;
+        this.eventos = eventos;
+        this.estatisticas = estatisticas;
+        this.jdbc = jdbc;
+        this.transacao = transacao;
+        this.props = props;
+        this.repassados = metricas.counter("notificador.outbox.repassados");
+        this.duplicados = metricas.counter("notificador.outbox.duplicados");
+        this.atraso = Timer.builder("notificador.outbox.atraso")
+                .description("Tempo entre o commit no outbox e a criação do EmailLog")
+                .register(metricas);
+
+        this.relay = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "outbox-relay");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Só com a aplicação pronta, como a varredura do EmailDispatcher: antes disso o relay
+    // entregaria ids a um dispatcher sem varredura nem renovação de lease. A primeira execução
+    // repassa o que ficou no outbox, inclusive de uma execução anterior
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarRelay() {
+        iniciado = true;
+        relay.scheduleWithFixedDelay(this::repassarSeguro,
+                0, props.getIntervaloMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Grava o e-mail no outbox com uma chave de idempotência nova. Exige uma transação ativa:
+     * se a operação de negócio for desfeita, o e-mail também é. O conteúdo é uma referência
+     * criada pelo {@link ConteudoEmailService}, de preferência antes de abrir a transação.
+     * Prioridade TRANSACIONAL.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String registrar(String destinatario, String assunto, ConteudoEmail conteudo) {
+        return registrar(destinatario, assunto, conteudo, Prioridade.TRANSACIONAL);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String registrar(String destinatario, String assunto, ConteudoEmail conteudo, Prioridade prioridade) {
+        return registrar(UUID.randomUUID().toString(), destinatario, assunto, conteudo, prioridade);
+    }
+
+    /**
+     * Como {@link #registrar(String, String, ConteudoEmail, Prioridade)}, com a chave definida por
+     * quem chama (ex.: para que uma operação repetida não gere dois envios).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String registrar(String chave, String destinatario, String assunto, ConteudoEmail conteudo,
+                            Prioridade prioridade) {
+        OutboxEmail email = new OutboxEmail();
+        email.setChaveIdempotencia(chave);
+        email.setDestinatario(destinatario);
+        email.setAssunto(assunto);
+        conteudo.aplicar(email);
+        email.setPrioridade(prioridade);
+        email.setCriadoEm(LocalDateTime.now());
+        outboxRepo.save(email);
+
+        // sem esperar a próxima varredura
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acordar();
+            }
+        });
+        return chave;
+    }
+
+    private void acordar() {
+        if (!iniciado) {
+            return;
+        }
+        if (repasseAgendado.compareAndSet(false, true)) {
+            relay.execute(() -> {
+                repasseAgendado.set(false);
+                repassarSeguro();
+            });
+        }
+    }
+
+    private void repassarSeguro() {
+        try {
+            repassar();
+        } catch (Exception e) {
+            logger.error("Erro ao repassar o outbox de e-mails", e);
+        }
+    }
+
+    /**
+     * Repassa lotes até o outbox esvaziar (ou outra instância estar com as linhas restantes).
+     */
+    public void repassar() {
+        int lote = Math.max(1, props.getTamanhoLote());
+        Repasse repasse;
+        do {
+            repasse = transacao.execute(status -> repassarLote(lote));
+            // só depois do commit: o worker precisa enxergar o EmailLog
+            for (EmailLog log : repasse.logs()) {
+                eventos.publicar(log);
+                estatisticas.registrar(log);
+                dispatcher.submeter(log.getId(), log.getPrioridade());
+            }
+        } while (repasse.reivindicadas() == lote);
+    }
+
+    private Repasse repassarLote(int lote) {
+        List<Pendente> pendentes = jdbc.query(REIVINDICAR, (rs, n) -> new Pendente(
+                rs.getLong("id"),
+                rs.getString("chave_idempotencia"),
+                rs.getString("destinatario"),
+                rs.getString("assunto"),
+                new ConteudoEmail(
+                        rs.getString("template"),
+                        rs.getObject("template_versao", Long.class),
+                        rs.getString("template_locale"),
+                        rs.getString("template_hash"),
+                        rs.getString("variaveis"),
+                        rs.getString("corpo_hash"),
+                        rs.getString("corpo")),
+                rs.getString("prioridade") != null ? Prioridade.valueOf(rs.getString("prioridade")) : null,
+                rs.getObject("criado_em", LocalDateTime.class)), lote);
+        if (pendentes.isEmpty()) {
+            return new Repasse(0, List.of());
+        }
+
+        Set<String> jaRepassadas = new HashSet<>(emailLogRepo.findChavesIdempotenciaExistentes(
+                pendentes.stream().map(Pendente::chave).toList()));
+        LocalDateTime agora = LocalDateTime.now();
+        List<EmailLog> logs = new ArrayList<>(pendentes.size());
+        for (Pendente p : pendentes) {
+            if (jaRepassadas.contains(p.chave())) {
+                duplicados.increment();
+                continue;
+            }
+            EmailLog log = new EmailLog();
+            log.setChaveIdempotencia(p.chave());
+            log.setDestinatario(p.destinatario());
+            log.setAssunto(p.assunto());
+            p.conteudo().aplicar(log);
+            log.setPrioridade(Prioridade.ou(p.prioridade()));
+            log.setEnviadoEm(agora);
+            log.setStatus("PENDENTE");
+            log.setTentativas(0);
+            logs.add(log);
+            if (p.criadoEm() != null) {
+                atraso.record(Duration.between(p.criadoEm(), agora));
+            }
+        }
+
+        List<EmailLog> salvos = emailLogRepo.saveAll(logs);
+        outboxRepo.deleteAllByIdInBatch(pendentes.stream().map(Pendente::id).toList());
+        repassados.increment(salvos.size());
+        return new Repasse(pendentes.size(), salvos);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        // o que ficou no outbox é repassado no próximo start
+        relay.shutdownNow();
+    }
+
+    private record Pendente(long id, String chave, String destinatario, String assunto, ConteudoEmail conteudo,
+                            Prioridade prioridade, LocalDateTime criadoEm) {}
+
+    private record Repasse(int reivindicadas, List<EmailLog> logs) {}
+}
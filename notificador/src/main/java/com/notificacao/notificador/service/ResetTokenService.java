@@ -0,0 +1,188 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.ResetTokenProperties;
+import com.notificacao.notificador.model.Usuario;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Emissão e validação dos tokens de redefinição de senha. Só o SHA-256 do token é armazenado
+ * (ver {@link ResetTokenStore}); os expirados são apagados em segundo plano, em lotes.
+ * <p>
+ * O token também não fica no e-mail gravado: o link leva uma referência {@code [token-reset:semente.selo]}
+ * e o token, HMAC da semente com a chave do servidor, só é colocado no lugar dela na hora do envio
+ * ({@link #revelar}). O selo prende a referência ao destinatário: copiada do painel ou de uma
+ * exportação para um e-mail a outro endereço (ex.: variável de um lote), ela sai como está.
+ */
+@Service
+public class ResetTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResetTokenService.class);
+
+    /**
+     * Único template cujo envio revela tokens.
+     */
+    public static final String TEMPLATE = "redefinicao-senha";
+
+    private static final Pattern REFERENCIA =
+            Pattern.compile("\\[token-reset:([0-9a-f-]{36})\\.([A-Za-z0-9_-]{22})]");
+
+    // MessageDigest.getInstance faz busca de provider a cada chamada
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final ResetTokenStore store;
+    private final ResetTokenProperties props;
+    private final ThreadLocal<Mac> hmac;
+    private final ScheduledExecutorService varredura;
+
+    public ResetTokenService(ResetTokenStore store, ResetTokenProperties props) {
+        this.store = store;
+        this.props = props;
+        byte[] chave;
+        if (props.getChave() == null || props.getChave().isBlank()) {
+            logger.warn("notificador.reset-token.chave não configurada: os links de redefinição só valem neste processo");
+            chave = new byte[32];
+            new SecureRandom().nextBytes(chave);
+        } else {
+            chave = props.getChave().getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec spec = new SecretKeySpec(chave, "HmacSHA256");
+        this.hmac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(spec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.varredura = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reset-token-varredura");
+            t.setDaemon(true);
+            return t;
+        });
+        this.varredura.scheduleWithFixedDelay(this::removerExpirados,
+                props.getVarreduraIntervaloMs(), props.getVarreduraIntervaloMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gera um token para o usuário (substituindo o anterior) e retorna a referência a ele, que vai
+     * no e-mail para {@code destinatario} no lugar do token e é trocada por ele em {@link #revelar}.
+     */
+    public String emitir(Long usuarioId, String destinatario) {
+        String semente = UUID.randomUUID().toString();
+        store.salvar(usuarioId, hash(token(semente)), LocalDateTime.now().plusMinutes(props.getValidadeMinutos()));
+        return "[token-reset:" + semente + "." + selo(semente, destinatario) + "]";
+    }
+
+    /**
+     * Troca pelos tokens as referências emitidas para {@code destinatario}; as de outro destinatário
+     * ficam como estão. Só para o envio do {@link #TEMPLATE}: o texto devolvido não deve ser
+     * gravado nem exibido.
+     */
+    public String revelar(String texto, String destinatario) {
+        if (texto == null || !texto.contains("[token-reset:")) {
+            return texto;
+        }
+        Matcher m = REFERENCIA.matcher(texto);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            String semente = m.group(1);
+            boolean valida = MessageDigest.isEqual(selo(semente, destinatario).getBytes(StandardCharsets.US_ASCII),
+                    m.group(2).getBytes(StandardCharsets.US_ASCII));
+            m.appendReplacement(sb, Matcher.quoteReplacement(valida ? token(semente) : m.group()));
+        }
+        return m.appendTail(sb).toString();
+    }
+
+    private String token(String semente) {
+        return base64(hmac.get().doFinal(("token|" + semente).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // 128 bits do HMAC de semente e destinatário (normalizado, como o cadastro guarda)
+    private String selo(String semente, String destinatario) {
+        byte[] mac = hmac.get().doFinal(("ref|" + semente + "|" + Usuario.normalizarEmail(destinatario))
+                .getBytes(StandardCharsets.UTF_8));
+        return base64(Arrays.copyOf(mac, 16));
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public Optional<ResetTokenStore.TokenReset> buscar(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        return store.buscar(hash(token));
+    }
+
+    /**
+     * Como {@link #buscar}, mas o token deixa de valer: de várias chamadas com o mesmo token,
+     * só uma o recebe.
+     */
+    public Optional<ResetTokenStore.TokenReset> consumir(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        return store.consumir(hash(token));
+    }
+
+    public void remover(String token) {
+        store.remover(hash(token));
+    }
+
+    void removerExpirados() {
+        try {
+            int lote = Math.max(1, props.getVarreduraLote());
+            LocalDateTime agora = LocalDateTime.now();
+            int total = 0;
+            int removidos;
+            do {
+                removidos = store.removerExpirados(agora, lote);
+                total += removidos;
+            } while (removidos == lote);
+            if (total > 0) {
+                logger.info("{} token(s) de redefinição expirado(s) removido(s)", total);
+            }
+        } catch (Exception e) {
+            logger.error("Erro ao remover tokens expirados", e);
+        }
+    }
+
+    private static String hash(String token) {
+        return HexFormat.of().formatHex(SHA256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        varredura.shutdownNow();
+    }
+}
@@ -0,0 +1,33 @@
+package com.notificacao.notificador.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Onde ficam os tokens de redefinição de senha (pelo hash). Banco por padrão; em memória com
+ * {@code notificador.reset-token.armazenamento=memoria}, para instalações de um único nó.
+ */
+public interface ResetTokenStore {
+
+    record TokenReset(Long usuarioId, LocalDateTime expiracao) {}
+
+    /**
+     * Grava o token do usuário, substituindo o anterior se houver.
+     */
+    void salvar(Long usuarioId, String hash, LocalDateTime expiracao);
+
+    Optional<TokenReset> buscar(String hash);
+
+    /**
+     * Busca e remove o token numa operação só: com o mesmo hash em chamadas concorrentes,
+     * só uma recebe o token.
+     */
+    Optional<TokenReset> consumir(String hash);
+
+    void remover(String hash);
+
+    /**
+     * Remove até {@code lote} tokens expirados. Retorna quantos foram removidos.
+     */
+    int removerExpirados(LocalDateTime agora, int lote);
+}
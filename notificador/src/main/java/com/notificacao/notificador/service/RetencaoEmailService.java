@@ -0,0 +1,295 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.RetencaoProperties;
+import com.notificacao.notificador.dto.EmailLogArquivadoDTO;
+import com.notificacao.notificador.repository.EmailLogArquivoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retenção do histórico de envios. Logs concluídos há mais de {@code arquivar-apos-dias} (falhas,
+ * que o painel ainda pode reenviar, há mais de {@code arquivar-falha-apos-dias}) saem de
+ * {@code email_log} para {@code email_log_arquivo} (com a mesma referência de conteúdo; o HTML
+ * inline dos logs antigos vai em gzip), em lotes pequenos; no arquivo, sucessos são apagados
+ * depois de {@code purgar-sucesso-apos-dias} e falhas depois de {@code purgar-falha-apos-dias},
+ * junto com as tentativas. Por fim, o conteúdo de {@code email_corpo} que ficou sem referência
+ * e sem uso há {@code purgar-corpo-sem-uso-dias} é apagado.
+ * <p>
+ * O job cede espaço aos envios: para quando a fila de envio passa de {@code fila-maxima} e,
+ * entre lotes, dorme {@code fator-pausa} vezes o tempo que o último lote levou.
+ */
+@Service
+public class RetencaoEmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetencaoEmailService.class);
+
+    private static final List<String> CONCLUIDOS = List.of("SUCESSO", "SUCESSO_FALLBACK", "REENVIADO", "FALHA");
+    private static final List<String> SUCESSOS = List.of("SUCESSO", "SUCESSO_FALLBACK", "REENVIADO");
+    private static final List<String> FALHAS = List.of("FALHA");
+
+    private static final String SELECIONAR_QUENTES =
+            "SELECT id, destinatario, assunto, template, template_versao, template_locale, template_hash, variaveis, " +
+            "corpo_hash, corpo, enviado_em, status, erro, tentativas, lote_id, chave_idempotencia " +
+            "FROM email_log WHERE status = ? AND enviado_em < ? FETCH FIRST ? ROWS ONLY FOR UPDATE SKIP LOCKED";
+
+    private static final String INSERIR_ARQUIVO =
+            "INSERT INTO email_log_arquivo (id, destinatario, assunto, template, template_versao, template_locale, " +
+            "template_hash, variaveis, corpo_hash, corpo_gzip, enviado_em, status, erro, tentativas, lote_id, " +
+            "chave_idempotencia, arquivado_em) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // quem grava uma referência nova renova usado_em antes (ConteudoEmailService), então basta
+    // olhar as tabelas que guardam referências
+    private static final String SELECIONAR_CORPOS_SEM_USO =
+            "SELECT hash FROM email_corpo c WHERE c.usado_em < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM email_log l WHERE l.template_hash = c.hash) " +
+            "AND NOT EXISTS (SELECT 1 FROM email_log l WHERE l.corpo_hash = c.hash) " +
+            "AND NOT EXISTS (SELECT 1 FROM email_log_arquivo a WHERE a.template_hash = c.hash) " +
+            "AND NOT EXISTS (SELECT 1 FROM email_log_arquivo a WHERE a.corpo_hash = c.hash) " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_email o WHERE o.template_hash = c.hash OR o.corpo_hash = c.hash) " +
+            "FETCH FIRST ? ROWS ONLY FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final EmailLogArquivoRepository arquivoRepo;
+    private final EmailDispatcher dispatcher;
+    private final ConteudoEmailService conteudo;
+    private final RetencaoProperties props;
+    private final ScheduledExecutorService job;
+
+    private final Counter arquivados;
+    private final Counter purgados;
+    private final Counter corposPurgados;
+    private final Counter cedidos;
+
+    public RetencaoEmailService(JdbcTemplate jdbc,
+                                TransactionTemplate transacao,
+                                EmailLogArquivoRepository arquivoRepo,
+                                EmailDispatcher dispatcher,
+                                ConteudoEmailService conteudo,
+                                RetencaoProperties props,
+                                MeterRegistry metricas) {
+        this.jdbc = jdbc;
+        this.transacao = transacao;
+        this.arquivoRepo = arquivoRepo;
+        this.dispatcher = dispatcher;
+        this.conteudo = conteudo;
+        this.props = props;
+        this.arquivados = metricas.counter("notificador.retencao.arquivados");
+        this.purgados = metricas.counter("notificador.retencao.purgados");
+        this.corposPurgados = metricas.counter("notificador.retencao.corpos_purgados");
+        this.cedidos = Counter.builder("notificador.retencao.cedidos")
+                .description("Execuções interrompidas para não competir com a fila de envio")
+                .register(metricas);
+
+        this.job = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "retencao-email");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    // só com a aplicação pronta, como os demais jobs: o job consulta a fila do EmailDispatcher
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarJob() {
+        job.scheduleWithFixedDelay(this::executarSeguro,
+                props.getIntervaloMs(), props.getIntervaloMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Log arquivado com o corpo renderizado.
+     */
+    public Optional<EmailLogArquivadoDTO> buscarArquivado(Long id) {
+        return arquivoRepo.findById(id).map(a -> new EmailLogArquivadoDTO(a.getId(), a.getDestinatario(),
+                a.getAssunto(), conteudo.renderizar(ConteudoEmail.de(a)), a.getEnviadoEm(), a.getStatus(),
+                a.getErro(), a.getTentativas(), a.getLoteId(), a.getArquivadoEm()));
+    }
+
+    private void executarSeguro() {
+        try {
+            executar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Erro no job de retenção de e-mails", e);
+        }
+    }
+
+    /**
+     * Uma execução completa: arquiva o que venceu na tabela quente, purga o arquivo e o conteúdo
+     * sem referência.
+     */
+    public void executar() throws InterruptedException {
+        LocalDateTime agora = LocalDateTime.now();
+        long movidos = 0;
+        long apagados = 0;
+
+        for (String status : CONCLUIDOS) {
+            LocalDateTime limiteArquivo = agora.minusDays(FALHAS.contains(status)
+                    ? props.getArquivarFalhaAposDias() : props.getArquivarAposDias());
+            int n;
+            do {
+                if (!podeContinuar()) {
+                    return;
+                }
+                long t0 = System.nanoTime();
+                n = transacao.execute(s -> arquivarLote(status, limiteArquivo));
+                movidos += n;
+                pausar(t0);
+            } while (n == props.getTamanhoLote());
+        }
+
+        apagados += purgar(SUCESSOS, agora.minusDays(props.getPurgarSucessoAposDias()));
+        apagados += purgar(FALHAS, agora.minusDays(props.getPurgarFalhaAposDias()));
+        long corpos = purgarCorpos(agora.minusDays(props.getPurgarCorpoSemUsoDias()));
+
+        if (movidos > 0 || apagados > 0 || corpos > 0) {
+            logger.info("Retenção: {} log(s) arquivado(s), {} apagado(s) do arquivo, {} conteúdo(s) sem uso apagado(s)",
+                    movidos, apagados, corpos);
+        }
+    }
+
+    private int arquivarLote(String status, LocalDateTime limite) {
+        List<Object[]> linhas = jdbc.query(SELECIONAR_QUENTES, (rs, i) -> new Object[] {
+                rs.getLong("id"),
+                rs.getString("destinatario"),
+                rs.getString("assunto"),
+                rs.getString("template"),
+                rs.getObject("template_versao"),
+                rs.getString("template_locale"),
+                rs.getString("template_hash"),
+                rs.getString("variaveis"),
+                rs.getString("corpo_hash"),
+                CompressaoCorpo.comprimir(rs.getString("corpo")),
+                rs.getTimestamp("enviado_em"),
+                rs.getString("status"),
+                rs.getString("erro"),
+                rs.getObject("tentativas"),
+                rs.getObject("lote_id"),
+                rs.getString("chave_idempotencia"),
+                null
+        }, status, Timestamp.valueOf(limite), props.getTamanhoLote());
+        if (linhas.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp arquivadoEm = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = new ArrayList<>(linhas.size());
+        for (Object[] linha : linhas) {
+            linha[linha.length - 1] = arquivadoEm;
+            ids.add((Long) linha[0]);
+        }
+        jdbc.batchUpdate(INSERIR_ARQUIVO, linhas);
+        jdbc.update("DELETE FROM email_log WHERE id IN (" + marcadores(ids.size()) + ")", ids.toArray());
+        arquivados.increment(ids.size());
+        return ids.size();
+    }
+
+    private long purgar(List<String> status, LocalDateTime limite) throws InterruptedException {
+        long total = 0;
+        int n;
+        do {
+            if (!podeContinuar()) {
+                return total;
+            }
+            long t0 = System.nanoTime();
+            n = transacao.execute(s -> purgarLote(status, limite));
+            total += n;
+            pausar(t0);
+        } while (n == props.getTamanhoLote());
+        return total;
+    }
+
+    private int purgarLote(List<String> status, LocalDateTime limite) {
+        List<Object> args = new ArrayList<>(status);
+        args.add(Timestamp.valueOf(limite));
+        args.add(props.getTamanhoLote());
+        List<Long> ids = jdbc.queryForList("SELECT id FROM email_log_arquivo WHERE status IN (" + marcadores(status.size()) +
+                ") AND enviado_em < ? FETCH FIRST ? ROWS ONLY FOR UPDATE SKIP LOCKED", Long.class, args.toArray());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        jdbc.update("DELETE FROM email_tentativa WHERE email_log_id IN (" + marcadores(ids.size()) + ")", ids.toArray());
+        jdbc.update("DELETE FROM email_log_arquivo WHERE id IN (" + marcadores(ids.size()) + ")", ids.toArray());
+        purgados.increment(ids.size());
+        return ids.size();
+    }
+
+    private long purgarCorpos(LocalDateTime limite) throws InterruptedException {
+        long total = 0;
+        int n;
+        do {
+            if (!podeContinuar()) {
+                return total;
+            }
+            long t0 = System.nanoTime();
+            n = transacao.execute(s -> purgarCorposLote(limite));
+            total += n;
+            pausar(t0);
+        } while (n == props.getTamanhoLote());
+        return total;
+    }
+
+    private int purgarCorposLote(LocalDateTime limite) {
+        Timestamp ts = Timestamp.valueOf(limite);
+        List<String> hashes = jdbc.queryForList(SELECIONAR_CORPOS_SEM_USO, String.class, ts, props.getTamanhoLote());
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(hashes);
+        args.add(ts);
+        // usado_em de novo: o conteúdo pode ter sido reaproveitado depois da seleção
+        int n = jdbc.update("DELETE FROM email_corpo WHERE hash IN (" + marcadores(hashes.size()) + ") AND usado_em < ?",
+                args.toArray());
+        corposPurgados.increment(n);
+        return hashes.size();
+    }
+
+    // fila de envio cheia: os envios têm prioridade, o job tenta de novo na próxima execução
+    private boolean podeContinuar() {
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        if (dispatcher.tamanhoFila() > props.getFilaMaxima()) {
+            cedidos.increment();
+            logger.debug("Retenção adiada: {} envio(s) na fila", dispatcher.tamanhoFila());
+            return false;
+        }
+        return true;
+    }
+
+    private void pausar(long inicioNs) throws InterruptedException {
+        long duracaoMs = (System.nanoTime() - inicioNs) / 1_000_000;
+        long pausaMs = (long) (duracaoMs * props.getFatorPausa());
+        if (pausaMs > 0) {
+            Thread.sleep(pausaMs);
+        }
+    }
+
+    private static String marcadores(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        job.shutdownNow();
+    }
+}
@@ -0,0 +1,36 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.EnvioProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff exponencial com jitter para as novas tentativas de envio.
+ */
+@Component
+public class RetryPolicy {
+
+    private final EnvioProperties props;
+
+    public RetryPolicy(EnvioProperties props) {
+        this.props = props;
+    }
+
+    public boolean podeRetentar(int tentativasRealizadas) {
+        return tentativasRealizadas < props.getMaxTentativas();
+    }
+
+    /**
+     * Atraso antes da próxima tentativa, dado o número de tentativas já realizadas (>= 1).
+     */
+    public long atrasoMs(int tentativasRealizadas) {
+        double base = props.getBackoffInicialMs()
+                * Math.pow(props.getBackoffMultiplicador(), Math.max(0, tentativasRealizadas - 1));
+        base = Math.min(base, props.getBackoffMaximoMs());
+
+        double jitter = Math.max(0, Math.min(1, props.getJitter()));
+        double fator = 1 - jitter + ThreadLocalRandom.current().nextDouble() * 2 * jitter;
+        return Math.max(0, Math.round(base * fator));
+    }
+}
@@ -0,0 +1,68 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.SenhaProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hash e verificação de senha (BCrypt) num pool próprio, do tamanho do número de núcleos.
+ * As threads do Tomcat não ficam presas no BCrypt, e com a fila cheia a chamada falha na hora
+ * com {@link RejectedExecutionException} em vez de acumular trabalho.
+ */
+@Service
+public class SenhaService {
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+
+    public SenhaService(SenhaProperties props) {
+        this.encoder = new BCryptPasswordEncoder(props.getCustoBcrypt());
+
+        int n = props.getThreads() > 0 ? props.getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, props.getMaxFila())),
+                r -> {
+                    Thread t = new Thread(r, "senha-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @throws RejectedExecutionException se a fila do pool estiver cheia
+     */
+    public CompletableFuture<String> codificar(String senha) {
+        return CompletableFuture.supplyAsync(() -> encoder.encode(senha), executor);
+    }
+
+    /**
+     * @throws RejectedExecutionException se a fila do pool estiver cheia
+     */
+    public CompletableFuture<Boolean> confere(String senha, String hash) {
+        return CompletableFuture.supplyAsync(() -> encoder.matches(senha, hash), executor);
+    }
+
+    // hash gerado com custo menor que o configurado
+    public boolean precisaRehash(String hash) {
+        return encoder.upgradeEncoding(hash);
+    }
+
+    public int tamanhoFila() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,118 @@
+package com.notificacao.notificador.service;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template já analisado: trechos literais intercalados com variáveis {@code {{nome}}}.
+ * A análise acontece uma vez; renderizar é só concatenar num builder já dimensionado.
+ * <p>
+ * O valor de {@code {{nome}}} entra com escape de HTML, já que pode vir de quem pediu o envio
+ * (variáveis do lote). {@code {{{nome}}}} insere o valor como está, para o template que
+ * recebe um trecho de HTML de propósito.
+ */
+public final class TemplateCompilado {
+
+    // folga por variável no tamanho inicial do builder (ex.: um link)
+    private static final int ESTIMATIVA_VARIAVEL = 128;
+
+    private final String nome;
+    private final String locale;
+    private final long versao;
+    // fonte e o hash dela, que identifica esta versão exata no EmailLog (ver ConteudoEmail)
+    private final String fonte;
+    private final String hash;
+    // literais.length == variaveis.length + 1
+    private final String[] literais;
+    private final String[] variaveis;
+    // brutas[i]: variaveis[i] veio como {{{nome}}} e não passa pelo escape
+    private final boolean[] brutas;
+    private final int tamanhoInicial;
+
+    private TemplateCompilado(String nome, String locale, long versao, String fonte,
+                              String[] literais, String[] variaveis, boolean[] brutas) {
+        this.nome = nome;
+        this.locale = locale;
+        this.versao = versao;
+        this.fonte = fonte;
+        this.hash = ConteudoEmailService.hash(fonte);
+        this.literais = literais;
+        this.variaveis = variaveis;
+        this.brutas = brutas;
+        int tamanho = 0;
+        for (String literal : literais) {
+            tamanho += literal.length();
+        }
+        this.tamanhoInicial = tamanho + variaveis.length * ESTIMATIVA_VARIAVEL;
+    }
+
+    public static TemplateCompilado compilar(String nome, long versao, String fonte) {
+        return compilar(nome, "", versao, fonte);
+    }
+
+    public static TemplateCompilado compilar(String nome, String locale, long versao, String fonte) {
+        List<String> literais = new ArrayList<>();
+        List<String> variaveis = new ArrayList<>();
+        List<Boolean> brutas = new ArrayList<>();
+        int inicio = 0;
+        while (true) {
+            int abre = fonte.indexOf("{{", inicio);
+            boolean bruta = abre >= 0 && fonte.startsWith("{{{", abre);
+            String fim = bruta ? "}}}" : "}}";
+            int fecha = abre < 0 ? -1 : fonte.indexOf(fim, abre + fim.length());
+            if (fecha < 0) {
+                literais.add(fonte.substring(inicio));
+                break;
+            }
+            literais.add(fonte.substring(inicio, abre));
+            variaveis.add(fonte.substring(abre + fim.length(), fecha).trim());
+            brutas.add(bruta);
+            inicio = fecha + fim.length();
+        }
+        boolean[] semEscape = new boolean[brutas.size()];
+        for (int i = 0; i < semEscape.length; i++) {
+            semEscape[i] = brutas.get(i);
+        }
+        return new TemplateCompilado(nome, locale, versao, fonte,
+                literais.toArray(String[]::new), variaveis.toArray(String[]::new), semEscape);
+    }
+
+    /**
+     * Variáveis ausentes viram texto vazio.
+     */
+    public String render(Map<String, String> valores) {
+        StringBuilder sb = new StringBuilder(tamanhoInicial);
+        sb.append(literais[0]);
+        for (int i = 0; i < variaveis.length; i++) {
+            String valor = valores.get(variaveis[i]);
+            if (valor != null) {
+                sb.append(brutas[i] ? valor : HtmlUtils.htmlEscape(valor, "UTF-8"));
+            }
+            sb.append(literais[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    public String getFonte() {
+        return fonte;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+}
@@ -0,0 +1,38 @@
+package com.notificacao.notificador.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sem locks, implementado como GCRA: guarda apenas o "horário teórico de chegada"
+ * da próxima requisição num {@link AtomicLong}.
+ */
+public class TokenBucket {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final AtomicLong proximaChegada = new AtomicLong(System.nanoTime());
+
+    public TokenBucket(double porSegundo, int rajada) {
+        this.intervaloNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(porSegundo, 0.001));
+        this.toleranciaNanos = intervaloNanos * Math.max(0, rajada - 1);
+    }
+
+    /**
+     * Consome um token. Retorna 0 se liberado, ou quantos milissegundos esperar antes de tentar de novo.
+     */
+    public long tentarConsumir() {
+        while (true) {
+            long agora = System.nanoTime();
+            long atual = proximaChegada.get();
+            long base = Math.max(atual, agora);
+            long espera = base - agora - toleranciaNanos;
+            if (espera > 0) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(espera));
+            }
+            if (proximaChegada.compareAndSet(atual, base + intervaloNanos)) {
+                return 0;
+            }
+        }
+    }
+}
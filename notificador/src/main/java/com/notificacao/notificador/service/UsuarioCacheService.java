@@ -0,0 +1,113 @@
+package com.notificacao.notificador.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.notificacao.notificador.config.UsuarioCacheProperties;
+import com.notificacao.notificador.model.Usuario;
+import com.notificacao.notificador.repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache read-through dos usuários por e-mail (sem diferenciar maiúsculas). Guarda uma cópia
+ * imutável (sem a coleção de roles do Hibernate) e também os e-mails não cadastrados, com TTL menor.
+ * Quem altera o usuário deve chamar {@link #invalidar(String)}.
+ * <p>
+ * O e-mail é gravado normalizado ({@link Usuario#normalizarEmail}), então a busca no banco é
+ * uma igualdade simples, atendida pelo índice único.
+ */
+@Service
+public class UsuarioCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioCacheService.class);
+
+    public record UsuarioResumo(Long id, String email, Set<String> roles, String senha) {
+        public UsuarioResumo {
+            roles = Set.copyOf(roles);
+        }
+    }
+
+    private final UsuarioRepository usuarioRepository;
+    private final Cache<String, Optional<UsuarioResumo>> cache;
+
+    public UsuarioCacheService(UsuarioRepository usuarioRepository, UsuarioCacheProperties props) {
+        this.usuarioRepository = usuarioRepository;
+        long ttl = TimeUnit.MILLISECONDS.toNanos(props.getTtlMs());
+        long ttlNegativo = TimeUnit.MILLISECONDS.toNanos(props.getTtlNegativoMs());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(props.getMaximo())
+                .expireAfter(new Expiry<String, Optional<UsuarioResumo>>() {
+                    @Override
+                    public long expireAfterCreate(String chave, Optional<UsuarioResumo> valor, long agora) {
+                        return valor.isPresent() ? ttl : ttlNegativo;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String chave, Optional<UsuarioResumo> valor, long agora, long restante) {
+                        return valor.isPresent() ? ttl : ttlNegativo;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String chave, Optional<UsuarioResumo> valor, long agora, long restante) {
+                        return restante;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public Optional<UsuarioResumo> buscar(String email) {
+        if (email == null || email.isBlank()) {
+            return Optional.empty();
+        }
+        return cache.get(Usuario.normalizarEmail(email), chave -> usuarioRepository.findByEmail(chave)
+                .map(UsuarioCacheService::resumo));
+    }
+
+    public void invalidar(String email) {
+        if (email != null) {
+            cache.invalidate(Usuario.normalizarEmail(email));
+        }
+    }
+
+    // cadastros gravados antes da normalização não seriam encontrados pela busca exata
+    @EventListener(ApplicationReadyEvent.class)
+    public void normalizarCadastrados() {
+        try {
+            int alterados = usuarioRepository.normalizarEmails();
+            if (alterados > 0) {
+                logger.info("{} e-mail(s) de usuário normalizados", alterados);
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("E-mails de usuário que só diferem em maiúsculas; normalização não aplicada", e);
+        }
+    }
+
+    public Map<String, Object> metricas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("tamanho", cache.estimatedSize());
+        m.put("acertos", stats.hitCount());
+        m.put("falhas", stats.missCount());
+        m.put("taxaAcerto", stats.hitRate());
+        m.put("remocoes", stats.evictionCount());
+        m.put("tempoMedioCargaMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return m;
+    }
+
+    private static UsuarioResumo resumo(Usuario u) {
+        return new UsuarioResumo(u.getId(), u.getEmail(), u.getRoles(), u.getSenha());
+    }
+}
@@ -0,0 +1,279 @@
+package com.notificacao.notificador.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notificacao.notificador.model.Usuario;
+import com.notificacao.notificador.repository.UsuarioRepository;
+import com.notificacao.notificador.service.JwtService;
+import com.notificacao.notificador.support.SmtpStubServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Teste de carga de ponta a ponta: sobe a aplicação contra o {@link SmtpStubServer} com
+ * latência, recusas e quedas de conexão, dispara {@code /auth/forgot-password} e
+ * {@code /admin/emails/lote} com concorrência fixa e espera todo {@code EmailLog} chegar a um
+ * status terminal. Latências (HdrHistogram) e vazão vão para a saída e para {@code target/carga}.
+ * <p>
+ * Fora do {@code mvn test} padrão: {@code mvn -Pcarga test -Dcarga.requisicoes=5000}.
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CargaEnvioTest {
+
+    private static final int USUARIOS = Integer.getInteger("carga.usuarios", 200);
+    private static final int REQUISICOES = Integer.getInteger("carga.requisicoes", 1000);
+    private static final int LOTES = Integer.getInteger("carga.lotes", 5);
+    private static final int TAMANHO_LOTE = Integer.getInteger("carga.tamanhoLote", 200);
+    private static final int CONCORRENCIA = Integer.getInteger("carga.concorrencia", 16);
+    private static final long LATENCIA_MS = Long.getLong("carga.latenciaMs", 20);
+    private static final double TAXA_FALHA = Double.parseDouble(System.getProperty("carga.taxaFalha", "0.02"));
+    private static final double TAXA_QUEDA = Double.parseDouble(System.getProperty("carga.taxaQueda", "0.01"));
+    private static final long TIMEOUT_S = Long.getLong("carga.timeoutS", 300);
+
+    private static final SmtpStubServer smtp = iniciarSmtp();
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void propriedades(DynamicPropertyRegistry registro) {
+        registro.add("spring.datasource.url", () -> "jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1");
+        registro.add("spring.jpa.show-sql", () -> "false");
+        registro.add("spring.mail.host", () -> "localhost");
+        registro.add("spring.mail.port", smtp::porta);
+        registro.add("spring.mail.properties.mail.smtp.auth", () -> "false");
+        registro.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+        registro.add("spring.mail.properties.mail.smtp.starttls.required", () -> "false");
+
+        // retries e circuito em escala de teste; -Dcarga.* ajusta os valores para experimentos
+        registro.add("notificador.envio.backoff-inicial-ms", () -> System.getProperty("carga.backoffInicialMs", "100"));
+        registro.add("notificador.envio.backoff-maximo-ms", () -> System.getProperty("carga.backoffMaximoMs", "2000"));
+        registro.add("notificador.circuit-breaker.tempo-aberto-ms", () -> System.getProperty("carga.tempoAbertoMs", "2000"));
+
+        // limites de taxa fora do caminho: toda a carga vem de um IP e de poucos domínios
+        registro.add("notificador.limite-dominio.envios-por-segundo", () -> "100000");
+        registro.add("notificador.limite-dominio.rajada", () -> "100000");
+        registro.add("notificador.limite-dominio.relay-envios-por-segundo", () -> "100000");
+        registro.add("notificador.limite-dominio.relay-rajada", () -> "100000");
+        registro.add("notificador.senha.tentativas-por-minuto-ip", () -> "1000000");
+        registro.add("notificador.senha.rajada-ip", () -> "1000000");
+        registro.add("notificador.senha.tentativas-por-minuto-email", () -> "1000000");
+        registro.add("notificador.senha.rajada-email", () -> "1000000");
+    }
+
+    @AfterAll
+    static void encerrarSmtp() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void todasAsNotificacoesChegamAUmStatusTerminal() throws Exception {
+        criarUsuarios();
+        String tokenAdmin = jwtService.gerarToken("carga-admin@carga.test", Set.of("ROLE_ADMIN"));
+
+        // latências em microssegundos
+        Histogram esqueciSenha = new ConcurrentHistogram(3);
+        Histogram lote = new ConcurrentHistogram(3);
+
+        ExecutorService clientes = Executors.newFixedThreadPool(CONCORRENCIA);
+        List<Future<Integer>> respostas = new ArrayList<>();
+        int intervaloLotes = LOTES > 0 ? Math.max(1, REQUISICOES / LOTES) : Integer.MAX_VALUE;
+        int lotesEnviados = 0;
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < REQUISICOES; i++) {
+            // lotes intercalados com o tráfego transacional
+            if (i % intervaloLotes == 0 && lotesEnviados < LOTES) {
+                String corpo = corpoLote(lotesEnviados++);
+                respostas.add(clientes.submit(() -> post("/admin/emails/lote", corpo, tokenAdmin, lote)));
+            }
+            String corpo = objectMapper.writeValueAsString(Map.of("email", email(i % USUARIOS)));
+            respostas.add(clientes.submit(() -> post("/auth/forgot-password", corpo, null, esqueciSenha)));
+        }
+        while (lotesEnviados < LOTES) {
+            String corpo = corpoLote(lotesEnviados++);
+            respostas.add(clientes.submit(() -> post("/admin/emails/lote", corpo, tokenAdmin, lote)));
+        }
+        for (Future<Integer> resposta : respostas) {
+            assertThat(resposta.get()).isBetween(200, 299);
+        }
+        long fimRequisicoes = System.nanoTime();
+        clientes.shutdown();
+
+        long esperados = REQUISICOES + (long) LOTES * TAMANHO_LOTE;
+        Map<String, Long> porStatus = aguardarStatusTerminal(esperados);
+        long fimEntregas = System.nanoTime();
+
+        Histogram tentativas = new Histogram(3);
+        jdbc.query("select duracao_ms from email_tentativa", linha -> {
+            tentativas.recordValue(Math.max(0, linha.getLong(1)) * 1000);
+        });
+
+        relatar(esqueciSenha, lote, tentativas, porStatus, inicio, fimRequisicoes, fimEntregas);
+
+        long entregues = porStatus.getOrDefault("SUCESSO", 0L) + porStatus.getOrDefault("SUCESSO_FALLBACK", 0L);
+        assertThat(porStatus.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(esperados);
+        assertThat(porStatus).doesNotContainKeys("PENDENTE", "RETRY");
+        assertThat((long) smtp.mensagens().size()).isGreaterThanOrEqualTo(entregues);
+    }
+
+    private void criarUsuarios() {
+        List<Usuario> usuarios = new ArrayList<>(USUARIOS);
+        for (int i = 0; i < USUARIOS; i++) {
+            usuarios.add(Usuario.builder()
+                    .email(email(i))
+                    .senha("nao-usada")
+                    .roles(new HashSet<>(Set.of("ROLE_USER")))
+                    .build());
+        }
+        usuarioRepository.saveAll(usuarios);
+    }
+
+    private String corpoLote(int numero) throws IOException {
+        List<Map<String, Object>> destinatarios = new ArrayList<>(TAMANHO_LOTE);
+        for (int i = 0; i < TAMANHO_LOTE; i++) {
+            destinatarios.add(Map.of(
+                    "email", "lote" + numero + "-" + i + "@dominio" + (i % 10) + ".carga.test",
+                    "variaveis", Map.of("link", "http://localhost:5173/reset-password?token=" + numero + "-" + i)));
+        }
+        return objectMapper.writeValueAsString(Map.of(
+                "template", "redefinicao-senha",
+                "assunto", "Carga " + numero,
+                "destinatarios", destinatarios));
+    }
+
+    private int post(String caminho, String json, String token, Histogram latencias) throws Exception {
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + caminho))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) {
+            requisicao.header("Authorization", "Bearer " + token);
+        }
+        long t0 = System.nanoTime();
+        int status = http.send(requisicao.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        latencias.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - t0));
+        return status;
+    }
+
+    // o status final é gravado em batch pelo EmailLogWriter, então a verificação é por polling
+    private Map<String, Long> aguardarStatusTerminal(long esperados) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_S);
+        while (true) {
+            Map<String, Long> porStatus = new TreeMap<>();
+            jdbc.query("select status, count(*) from email_log group by status",
+                    linha -> {
+                        porStatus.put(linha.getString(1), linha.getLong(2));
+                    });
+            long total = porStatus.values().stream().mapToLong(Long::longValue).sum();
+            boolean pendentes = porStatus.containsKey("PENDENTE") || porStatus.containsKey("RETRY");
+            if (total >= esperados && !pendentes) {
+                return porStatus;
+            }
+            if (System.nanoTime() > limite) {
+                fail("Após " + TIMEOUT_S + "s ainda há envios não terminais: " + porStatus + " (esperados " + esperados + ")");
+            }
+            Thread.sleep(200);
+        }
+    }
+
+    private void relatar(Histogram esqueciSenha, Histogram lote, Histogram tentativas, Map<String, Long> porStatus,
+                         long inicio, long fimRequisicoes, long fimEntregas) throws IOException {
+        double segundosRequisicoes = (fimRequisicoes - inicio) / 1e9;
+        double segundosEntregas = (fimEntregas - inicio) / 1e9;
+        long mensagens = porStatus.values().stream().mapToLong(Long::longValue).sum();
+
+        System.out.printf("%n=== Carga: %d forgot-password + %d lotes x %d, concorrência %d ===%n",
+                REQUISICOES, LOTES, TAMANHO_LOTE, CONCORRENCIA);
+        System.out.printf("SMTP stub: latência %d ms, recusa %.1f%%, queda %.1f%%%n",
+                LATENCIA_MS, TAXA_FALHA * 100, TAXA_QUEDA * 100);
+        System.out.println(resumo("POST /auth/forgot-password", esqueciSenha));
+        System.out.println(resumo("POST /admin/emails/lote", lote));
+        System.out.println(resumo("tentativa SMTP", tentativas));
+        System.out.printf("Requisições/s: %.1f  |  mensagens/s até status terminal: %.1f (%d em %.1f s)%n",
+                (REQUISICOES + LOTES) / segundosRequisicoes, mensagens / segundosEntregas, mensagens, segundosEntregas);
+        System.out.println("Status: " + porStatus);
+        System.out.printf("Stub: %d recebidas, %d recusadas, %d quedas, %d conexões%n",
+                smtp.mensagens().size(), smtp.recusadas(), smtp.quedas(), smtp.conexoes());
+
+        // distribuição completa (.hgrm) para comparar execuções ou plotar
+        File diretorio = new File("target/carga");
+        diretorio.mkdirs();
+        salvar(new File(diretorio, "forgot-password.hgrm"), esqueciSenha);
+        salvar(new File(diretorio, "lote.hgrm"), lote);
+        salvar(new File(diretorio, "tentativa-smtp.hgrm"), tentativas);
+    }
+
+    private static String resumo(String nome, Histogram h) {
+        return String.format("%-28s n=%-6d p50=%8.2f  p90=%8.2f  p99=%8.2f  p99.9=%8.2f  max=%8.2f ms",
+                nome, h.getTotalCount(),
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+                h.getMaxValue() / 1000.0);
+    }
+
+    private static void salvar(File arquivo, Histogram h) throws IOException {
+        try (PrintStream saida = new PrintStream(arquivo)) {
+            h.outputPercentileDistribution(saida, 1000.0);
+        }
+    }
+
+    private static String email(int i) {
+        return "usuario" + i + "@dominio" + (i % 10) + ".carga.test";
+    }
+
+    private static SmtpStubServer iniciarSmtp() {
+        try {
+            return new SmtpStubServer()
+                    .latenciaMs(LATENCIA_MS)
+                    .taxaFalha(TAXA_FALHA)
+                    .taxaQueda(TAXA_QUEDA);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
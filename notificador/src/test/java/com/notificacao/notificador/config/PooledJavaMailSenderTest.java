@@ -0,0 +1,89 @@
+package com.notificacao.notificador.config;
+
+import com.notificacao.notificador.support.SmtpStubServer;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledJavaMailSenderTest {
+
+    private SmtpStubServer smtp;
+    private PooledJavaMailSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new SmtpStubServer();
+
+        SmtpPoolProperties props = new SmtpPoolProperties();
+        props.setTamanho(2);
+        props.setValidarAposOciosoMs(0);
+        sender = new PooledJavaMailSender(props);
+        sender.setHost("localhost");
+        sender.setPort(smtp.porta());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        sender.destroy();
+        smtp.close();
+    }
+
+    @Test
+    void reutilizaAsConexoesDoPoolEntreEnvios() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> envios = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            envios.add(executor.submit(() -> {
+                sender.send(mensagem("dest" + n + "@exemplo.com"));
+                return null;
+            }));
+        }
+        for (Future<?> envio : envios) {
+            envio.get();
+        }
+        executor.shutdown();
+
+        assertThat(smtp.mensagens()).hasSize(20);
+        assertThat(smtp.conexoes()).isLessThanOrEqualTo(2);
+
+        SmtpTransportPool.Metricas metricas = sender.getPool().metricas();
+        assertThat(metricas.emUso()).isZero();
+        assertThat(metricas.mensagensEnviadas()).isEqualTo(20);
+        assertThat(metricas.conexoesAbertas()).isEqualTo(smtp.conexoes());
+        assertThat(smtp.noops()).isPositive();
+    }
+
+    @Test
+    void reconectaQuandoOServidorFechaAConexao() throws Exception {
+        sender.send(mensagem("a@exemplo.com"));
+        smtp.close();
+
+        smtp = new SmtpStubServer();
+        sender.setPort(smtp.porta());
+        sender.send(mensagem("b@exemplo.com"));
+
+        assertThat(smtp.mensagens()).hasSize(1);
+        assertThat(sender.getPool().metricas().conexoesAbertas()).isEqualTo(2);
+    }
+
+    private MimeMessage mensagem(String to) throws Exception {
+        MimeMessage message = sender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("teste@exemplo.com");
+        helper.setTo(to);
+        helper.setSubject("Teste");
+        helper.setText("<p>ok</p>", true);
+        return message;
+    }
+}
@@ -0,0 +1,93 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.CircuitBreakerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private CircuitBreakerProperties props;
+    private final List<CircuitBreaker.Transicao> transicoes = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        props = new CircuitBreakerProperties();
+        props.setTamanhoJanela(10);
+        props.setMinimoChamadas(4);
+        props.setTaxaFalhaPercentual(50);
+        props.setTempoAbertoMs(50);
+        props.setChamadasMeioAberto(2);
+    }
+
+    @Test
+    void abrePelaTaxaDeFalhaDaJanela() {
+        props.setTempoAbertoMs(60_000);
+        CircuitBreaker cb = new CircuitBreaker("teste", props, transicoes::add);
+
+        cb.registrarSucesso();
+        cb.registrarSucesso();
+        cb.registrarFalha();
+        assertThat(cb.getEstado()).isEqualTo(CircuitBreaker.Estado.FECHADO);
+
+        cb.registrarFalha();
+        assertThat(cb.getEstado()).isEqualTo(CircuitBreaker.Estado.ABERTO);
+        assertThat(cb.podeTentarEnvio()).isFalse();
+        assertThat(transicoes).extracting(CircuitBreaker.Transicao::para)
+                .containsExactly(CircuitBreaker.Estado.ABERTO);
+    }
+
+    @Test
+    void meioAbertoLiberaApenasAsChamadasDeTesteEFechaAposSucesso() throws InterruptedException {
+        CircuitBreaker cb = new CircuitBreaker("teste", props, transicoes::add);
+        for (int i = 0; i < 4; i++) {
+            cb.registrarFalha();
+        }
+        Thread.sleep(60);
+
+        assertThat(cb.podeTentarEnvio()).isTrue();
+        assertThat(cb.podeTentarEnvio()).isTrue();
+        assertThat(cb.podeTentarEnvio()).isFalse();
+        assertThat(cb.getEstado()).isEqualTo(CircuitBreaker.Estado.MEIO_ABERTO);
+
+        cb.registrarSucesso();
+        cb.registrarSucesso();
+        assertThat(cb.getEstado()).isEqualTo(CircuitBreaker.Estado.FECHADO);
+        assertThat(transicoes).extracting(CircuitBreaker.Transicao::para).containsExactly(
+                CircuitBreaker.Estado.ABERTO, CircuitBreaker.Estado.MEIO_ABERTO, CircuitBreaker.Estado.FECHADO);
+    }
+
+    @Test
+    void permissaoDevolvidaPodeSerUsadaDeNovo() throws InterruptedException {
+        props.setChamadasMeioAberto(1);
+        CircuitBreaker cb = new CircuitBreaker("teste", props, transicoes::add);
+        for (int i = 0; i < 4; i++) {
+            cb.registrarFalha();
+        }
+        Thread.sleep(60);
+
+        assertThat(cb.podeTentarEnvio()).isTrue();
+        assertThat(cb.podeTentarEnvio()).isFalse();
+        cb.devolverPermissao();
+        cb.devolverPermissao();
+        assertThat(cb.podeTentarEnvio()).isTrue();
+        assertThat(cb.podeTentarEnvio()).isFalse();
+    }
+
+    @Test
+    void falhaNoMeioAbertoReabreOCircuito() throws InterruptedException {
+        CircuitBreaker cb = new CircuitBreaker("teste", props, transicoes::add);
+        for (int i = 0; i < 4; i++) {
+            cb.registrarFalha();
+        }
+        Thread.sleep(60);
+        assertThat(cb.podeTentarEnvio()).isTrue();
+
+        cb.registrarFalha();
+        assertThat(cb.getEstado()).isEqualTo(CircuitBreaker.Estado.ABERTO);
+    }
+}
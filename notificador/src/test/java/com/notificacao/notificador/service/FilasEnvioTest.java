@@ -0,0 +1,61 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.model.Prioridade;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilasEnvioTest {
+
+    @Test
+    void divideOsEnviosPeloPesoEnquantoAsFilasDisputam() throws InterruptedException {
+        FilasEnvio filas = new FilasEnvio(8, 4, 1);
+        for (long i = 0; i < 1000; i++) {
+            filas.adicionar(i, Prioridade.EM_MASSA);
+            filas.adicionar(10_000 + i, Prioridade.TRANSACIONAL);
+            filas.adicionar(20_000 + i, Prioridade.CRITICA);
+        }
+
+        Map<Prioridade, Integer> servidos = new EnumMap<>(Prioridade.class);
+        for (int i = 0; i < 130; i++) {
+            servidos.merge(filas.proximo(false).prioridade(), 1, Integer::sum);
+        }
+
+        assertThat(servidos).containsEntry(Prioridade.CRITICA, 80)
+                .containsEntry(Prioridade.TRANSACIONAL, 40)
+                .containsEntry(Prioridade.EM_MASSA, 10);
+        assertThat(filas.tamanho()).isEqualTo(3000 - 130);
+    }
+
+    @Test
+    void criticaNaoEsperaAFilaEmMassaEsvaziar() throws InterruptedException {
+        FilasEnvio filas = new FilasEnvio(8, 4, 1);
+        for (long i = 0; i < 5000; i++) {
+            filas.adicionar(i, Prioridade.EM_MASSA);
+        }
+        filas.proximo(false);
+        filas.adicionar(99_999L, Prioridade.CRITICA);
+
+        assertThat(filas.proximo(false).logId()).isEqualTo(99_999L);
+        assertThat(filas.tamanho(Prioridade.EM_MASSA)).isEqualTo(4999);
+    }
+
+    @Test
+    void workerReservadoIgnoraEmMassaEFilaFechadaEsvazia() throws InterruptedException {
+        FilasEnvio filas = new FilasEnvio(8, 4, 1);
+        filas.adicionar(1L, Prioridade.EM_MASSA);
+        filas.adicionar(2L, null);
+        filas.fechar();
+
+        assertThat(filas.adicionar(3L, Prioridade.CRITICA)).isFalse();
+        FilasEnvio.Item item = filas.proximo(true);
+        assertThat(item.logId()).isEqualTo(2L);
+        assertThat(item.prioridade()).isEqualTo(Prioridade.TRANSACIONAL);
+        assertThat(filas.proximo(true)).isNull();
+        assertThat(filas.proximo(false).logId()).isEqualTo(1L);
+        assertThat(filas.proximo(false)).isNull();
+    }
+}
@@ -0,0 +1,122 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.NotificadorApplication;
+import com.notificacao.notificador.model.EmailLog;
+import com.notificacao.notificador.repository.EmailLogRepository;
+import com.notificacao.notificador.support.SmtpStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Duas instâncias da aplicação sobre o mesmo banco H2: cada envio pendente sai uma única vez,
+ * o trabalho é dividido entre elas e leases vencidos de uma instância que "caiu" são retomados.
+ */
+class LeaseEnvioTest {
+
+    private static final int ENVIOS = 200;
+
+    private static SmtpStubServer smtp;
+    private static ConfigurableApplicationContext noA;
+    private static ConfigurableApplicationContext noB;
+
+    @BeforeAll
+    static void iniciar() throws Exception {
+        smtp = new SmtpStubServer().latenciaMs(5);
+        noA = iniciarNo("a");
+        noB = iniciarNo("b");
+    }
+
+    @AfterAll
+    static void encerrar() throws Exception {
+        if (noA != null) {
+            noA.close();
+        }
+        if (noB != null) {
+            noB.close();
+        }
+        smtp.close();
+    }
+
+    private static ConfigurableApplicationContext iniciarNo(String no) {
+        // argumentos de linha de comando: precisam vencer o application.yml (ex.: server.port)
+        return new SpringApplicationBuilder(NotificadorApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:lease;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=" + smtp.porta(),
+                "--spring.mail.username=",
+                "--spring.mail.password=",
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                "--spring.mail.properties.mail.smtp.starttls.required=false",
+                "--notificador.limite-dominio.envios-por-segundo=100000",
+                "--notificador.limite-dominio.rajada=100000",
+                "--notificador.cluster.no=" + no,
+                "--notificador.cluster.lease-ms=2000",
+                "--notificador.cluster.varredura-ms=100",
+                "--notificador.cluster.lote-reivindicacao=10");
+    }
+
+    @Test
+    void cadaEnvioSaiUmaVezEntreAsInstancias() throws Exception {
+        EmailLogRepository repo = noA.getBean(EmailLogRepository.class);
+        JdbcTemplate jdbc = noA.getBean(JdbcTemplate.class);
+
+        List<EmailLog> logs = new ArrayList<>();
+        for (int i = 0; i < ENVIOS; i++) {
+            logs.add(pendente("u" + i + "@lease.test"));
+        }
+        List<Long> ids = repo.saveAll(logs).stream().map(EmailLog::getId).toList();
+
+        // lease vencido de uma instância que caiu e lease válido de uma instância viva
+        Long caido = repo.save(comLease(pendente("caido@lease.test"), "caido", LocalDateTime.now().minusMinutes(1))).getId();
+        Long ocupado = repo.save(comLease(pendente("ocupado@lease.test"), "vivo", LocalDateTime.now().plusHours(1))).getId();
+
+        long limite = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < limite && smtp.mensagens().size() < ENVIOS + 1) {
+            Thread.sleep(100);
+        }
+        // margem para um eventual envio duplicado aparecer
+        Thread.sleep(1000);
+
+        // um envio duplicado apareceria como mensagem a mais no SMTP
+        assertThat(smtp.mensagens()).hasSize(ENVIOS + 1);
+
+        List<Map<String, Object>> porDono = jdbc.queryForList(
+                "SELECT dono, COUNT(*) AS total FROM email_log WHERE status = 'SUCESSO' GROUP BY dono");
+        assertThat(porDono).extracting(l -> l.get("DONO")).contains("a", "b");
+
+        assertThat(repo.findById(caido)).get().extracting(EmailLog::getStatus).isEqualTo("SUCESSO");
+        assertThat(repo.findById(ocupado)).get().extracting(EmailLog::getStatus).isEqualTo("PENDENTE");
+        assertThat(repo.findAllById(ids)).extracting(EmailLog::getStatus).containsOnly("SUCESSO");
+    }
+
+    private static EmailLog pendente(String destinatario) {
+        EmailLog log = new EmailLog();
+        log.setDestinatario(destinatario);
+        log.setAssunto("Lease");
+        log.setCorpo("<p>" + destinatario + "</p>");
+        log.setEnviadoEm(LocalDateTime.now());
+        log.setStatus("PENDENTE");
+        log.setTentativas(0);
+        return log;
+    }
+
+    private static EmailLog comLease(EmailLog log, String dono, LocalDateTime leaseAte) {
+        log.setDono(dono);
+        log.setLeaseAte(leaseAte);
+        return log;
+    }
+}
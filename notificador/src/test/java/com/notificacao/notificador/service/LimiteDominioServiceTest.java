@@ -0,0 +1,35 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.CircuitBreakerProperties;
+import com.notificacao.notificador.config.LimiteDominioProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimiteDominioServiceTest {
+
+    @Test
+    void reservaDevolvidaLiberaOTesteDoCircuitoParaOProximoEnvio() throws InterruptedException {
+        CircuitBreakerProperties cbProps = new CircuitBreakerProperties();
+        cbProps.setTamanhoJanela(10);
+        cbProps.setMinimoChamadas(1);
+        cbProps.setTaxaFalhaPercentual(50);
+        cbProps.setTempoAbertoMs(500);
+        cbProps.setChamadasMeioAberto(1);
+        SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+        CircuitBreakerService relay = new CircuitBreakerService(cbProps, evento -> { }, metricas);
+        LimiteDominioService limites = new LimiteDominioService(cbProps, new LimiteDominioProperties(), relay, metricas);
+
+        limites.registrarFalha("a@x.com", false);
+        Thread.sleep(510);
+
+        // a única permissão de teste foi reservada, mas o conteúdo falhou antes do SMTP
+        assertThat(limites.reservar("a@x.com")).isZero();
+        limites.devolver("a@x.com");
+
+        assertThat(limites.reservar("a@x.com")).isZero();
+        limites.registrarSucesso("a@x.com");
+        assertThat(relay.estado()).isEqualTo(CircuitBreaker.Estado.FECHADO);
+    }
+}
@@ -0,0 +1,53 @@
+package com.notificacao.notificador.service;
+
+import com.notificacao.notificador.config.ResetTokenProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResetTokenServiceTest {
+
+    private ResetTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        ResetTokenProperties props = new ResetTokenProperties();
+        props.setChave("chave-de-teste-dos-tokens-de-redefinicao");
+        service = new ResetTokenService(new MemoriaResetTokenStore(), props);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.encerrar();
+    }
+
+    @Test
+    void revelaOTokenParaODestinatarioDaReferencia() {
+        String link = "http://localhost:5173/reset-password?token=" + service.emitir(1L, "vitima@x.com");
+
+        String enviado = service.revelar(link, " Vitima@X.com");
+
+        String token = enviado.substring(enviado.indexOf("token=") + 6);
+        assertThat(token).doesNotContain("token-reset");
+        assertThat(service.buscar(token)).hasValueSatisfying(t -> assertThat(t.usuarioId()).isEqualTo(1L));
+    }
+
+    @Test
+    void referenciaEmVariavelDeLoteParaOutroDestinatarioFicaComoEsta() {
+        // copiada do painel para a variável de um lote enviado ao próprio endereço
+        String variavel = "Clique: http://evil.test/?t=" + service.emitir(1L, "vitima@x.com");
+
+        assertThat(service.revelar(variavel, "atacante@x.com")).isEqualTo(variavel);
+    }
+
+    @Test
+    void tokenSoPodeSerConsumidoUmaVez() {
+        String token = service.revelar(service.emitir(1L, "vitima@x.com"), "vitima@x.com");
+
+        assertThat(service.consumir(token)).isPresent();
+        assertThat(service.consumir(token)).isEmpty();
+        assertThat(service.buscar(token)).isEmpty();
+    }
+}
@@ -0,0 +1,31 @@
+package com.notificacao.notificador.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemplateCompiladoTest {
+
+    @Test
+    void escapaOValorDasVariaveis() {
+        TemplateCompilado compilado = TemplateCompilado.compilar("t", 0, "<p>Olá, {{ nome }}</p><a href=\"{{link}}\">");
+
+        String html = compilado.render(Map.of(
+                "nome", "<script>alert(1)</script>",
+                "link", "https://x.test/?a=1&b=\"2\""));
+
+        assertThat(html).isEqualTo("<p>Olá, &lt;script&gt;alert(1)&lt;/script&gt;</p>"
+                + "<a href=\"https://x.test/?a=1&amp;b=&quot;2&quot;\">");
+    }
+
+    @Test
+    void chavesTriplasInseremOValorComoEsta() {
+        TemplateCompilado compilado = TemplateCompilado.compilar("t", 0, "<div>{{{bloco}}}</div>{{resto}}");
+
+        String html = compilado.render(Map.of("bloco", "<b>negrito</b>", "resto", "<i>"));
+
+        assertThat(html).isEqualTo("<div><b>negrito</b></div>&lt;i&gt;");
+    }
+}
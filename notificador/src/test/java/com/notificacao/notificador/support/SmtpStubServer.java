@@ -0,0 +1,175 @@
+package com.notificacao.notificador.support;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo, em processo, para testes. Aceita qualquer remetente/destinatário
+ * e guarda as mensagens recebidas em memória.
+ * <p>
+ * Para testes de carga, pode simular um relay lento ou instável: latência na resposta ao
+ * DATA, uma fração de mensagens recusadas com 451 e uma fração de conexões derrubadas
+ * depois de receber a mensagem (sem resposta).
+ */
+public class SmtpStubServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "smtp-stub");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicInteger conexoes = new AtomicInteger();
+    private final AtomicInteger noops = new AtomicInteger();
+    private final AtomicInteger recusadas = new AtomicInteger();
+    private final AtomicInteger quedas = new AtomicInteger();
+    private final List<String> mensagens = new CopyOnWriteArrayList<>();
+    private final List<Socket> clientes = new CopyOnWriteArrayList<>();
+
+    private volatile long latenciaMs;
+    private volatile double taxaFalha;
+    private volatile double taxaQueda;
+
+    public SmtpStubServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::aceitar);
+    }
+
+    public int porta() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int conexoes() {
+        return conexoes.get();
+    }
+
+    public int noops() {
+        return noops.get();
+    }
+
+    public List<String> mensagens() {
+        return mensagens;
+    }
+
+    public int recusadas() {
+        return recusadas.get();
+    }
+
+    public int quedas() {
+        return quedas.get();
+    }
+
+    // atraso antes de responder ao fim do DATA
+    public SmtpStubServer latenciaMs(long latenciaMs) {
+        this.latenciaMs = latenciaMs;
+        return this;
+    }
+
+    // fração (0..1) das mensagens recusadas com 451
+    public SmtpStubServer taxaFalha(double taxaFalha) {
+        this.taxaFalha = taxaFalha;
+        return this;
+    }
+
+    // fração (0..1) das mensagens em que a conexão cai antes da resposta
+    public SmtpStubServer taxaQueda(double taxaQueda) {
+        this.taxaQueda = taxaQueda;
+        return this;
+    }
+
+    private void aceitar() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                conexoes.incrementAndGet();
+                clientes.add(socket);
+                executor.execute(() -> atender(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+
+            responder(out, "220 stub ESMTP");
+            String linha;
+            while ((linha = in.readLine()) != null) {
+                String comando = linha.length() >= 4 ? linha.substring(0, 4).toUpperCase() : linha.toUpperCase();
+                switch (comando) {
+                    case "EHLO" -> responder(out, "250-stub\r\n250 8BITMIME");
+                    case "HELO", "MAIL", "RCPT", "RSET" -> responder(out, "250 OK");
+                    case "NOOP" -> {
+                        noops.incrementAndGet();
+                        responder(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        responder(out, "354 fim com <CRLF>.<CRLF>");
+                        StringBuilder corpo = new StringBuilder();
+                        String l;
+                        while ((l = in.readLine()) != null && !l.equals(".")) {
+                            corpo.append(l).append('\n');
+                        }
+                        if (latenciaMs > 0) {
+                            Thread.sleep(latenciaMs);
+                        }
+                        double sorteio = ThreadLocalRandom.current().nextDouble();
+                        if (sorteio < taxaQueda) {
+                            quedas.incrementAndGet();
+                            return;
+                        }
+                        if (sorteio < taxaQueda + taxaFalha) {
+                            recusadas.incrementAndGet();
+                            responder(out, "451 4.3.0 falha simulada");
+                            continue;
+                        }
+                        mensagens.add(corpo.toString());
+                        responder(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        responder(out, "221 tchau");
+                        return;
+                    }
+                    default -> responder(out, "502 comando não suportado");
+                }
+            }
+        } catch (SocketException ignored) {
+            // cliente fechou a conexão
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void responder(OutputStream out, String resposta) throws IOException {
+        out.write((resposta + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket cliente : clientes) {
+            cliente.close();
+        }
+        executor.shutdownNow();
+    }
+}